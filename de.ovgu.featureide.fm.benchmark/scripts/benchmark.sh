@@ -0,0 +1,36 @@
+#!/bin/sh
+# Starts the benchmark jar with an application class-data sharing (AppCDS) archive (requires Java 13).
+# The first start creates the archive when the JVM exits. All further starts with the same jar use it.
+# If the jar is rebuilt, the archive is created again.
+#
+# Usage: benchmark.sh <benchmark jar> [arguments...]
+# Environment: JAVA (default: java), JAVA_OPTS (additional JVM options), CDS_ARCHIVE (default: <jar>.jsa)
+
+if [ $# -lt 1 ]; then
+	echo "Usage: $0 <benchmark jar> [arguments...]" >&2
+	exit 1
+fi
+
+JAR="$1"
+shift
+JAVA="${JAVA:-java}"
+ARCHIVE="${CDS_ARCHIVE:-${JAR%.jar}.jsa}"
+
+# Same options for creating and using the archive
+PROFILE="-Xshare:auto -Xlog:cds=off -Xlog:cds+dynamic=off"
+
+if [ -f "$ARCHIVE" ] && [ "$ARCHIVE" -nt "$JAR" ]; then
+	exec "$JAVA" $PROFILE -XX:SharedArchiveFile="$ARCHIVE" $JAVA_OPTS -jar "$JAR" "$@"
+fi
+
+rm -f "$ARCHIVE"
+# Older JVMs do not support dynamic archives and are started without class data sharing.
+# The probe writes its archive to a temporary directory, such that it never replaces the archive of the jar.
+PROBE_DIR="$(mktemp -d "${TMPDIR:-/tmp}/cds-probe.XXXXXX")" || PROBE_DIR=""
+if [ -n "$PROBE_DIR" ] && "$JAVA" $PROFILE -XX:ArchiveClassesAtExit="$PROBE_DIR/probe.jsa" -version >/dev/null 2>&1; then
+	rm -rf "$PROBE_DIR"
+	exec "$JAVA" $PROFILE -XX:ArchiveClassesAtExit="$ARCHIVE" $JAVA_OPTS -jar "$JAR" "$@"
+else
+	[ -n "$PROBE_DIR" ] && rm -rf "$PROBE_DIR"
+	exec "$JAVA" $JAVA_OPTS -jar "$JAR" "$@"
+fi
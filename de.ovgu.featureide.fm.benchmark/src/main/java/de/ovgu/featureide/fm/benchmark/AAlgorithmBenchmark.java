@@ -21,31 +21,123 @@
 package de.ovgu.featureide.fm.benchmark;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import org.sk.utils.Logger;
 import org.sk.utils.io.CSVWriter;
 
 import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.benchmark.process.BatchAlgorithm;
+import de.ovgu.featureide.fm.benchmark.process.Cgroup;
+import de.ovgu.featureide.fm.benchmark.process.ClassDataSharing;
+import de.ovgu.featureide.fm.benchmark.process.ProcessMonitor;
 import de.ovgu.featureide.fm.benchmark.process.ProcessRunner;
+import de.ovgu.featureide.fm.benchmark.process.ResourceLimits;
 import de.ovgu.featureide.fm.benchmark.process.Result;
+import de.ovgu.featureide.fm.benchmark.util.CNFCache;
+import de.ovgu.featureide.fm.benchmark.util.InputFileCache;
+import de.ovgu.featureide.fm.benchmark.util.Phase;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder.Timer;
+import de.ovgu.featureide.fm.benchmark.util.ResultMemo;
+import de.ovgu.featureide.fm.benchmark.util.StoppingRule;
 import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
 
 /**
+ * Runs every algorithm on every system for the configured number of iterations.
+ * <p>
+ * The runs are expanded into a work queue that is processed by one or more {@link Slot slots}. If more than one slot
+ * is configured, runs are executed concurrently. Therefore, all data of a single run is passed via a
+ * {@link RunContext} and all methods called for a run must not rely on shared mutable state. In particular,
+ * {@link #adaptModel(SystemContext, int)} must derive its randomization only from the system and the system
+ * iteration. This also allows to resume an interrupted benchmark (see {@link ResumeIndex}), as the remaining runs
+ * get the same input as in the original execution.
+ *
  * @author Sebastian Krieter
  */
 public abstract class AAlgorithmBenchmark<R, A extends Algorithm<R>, K extends Result<R>> extends ABenchmark {
 
-	protected List<A> algorithmList;
+	private CSVWriter dataCSVWriter, modelCSVWriter, algorithmCSVWriter, stopCSVWriter, prunedCSVWriter, phaseCSVWriter;
+
+	/**
+	 * A system whose runs are determined and whose model may be loaded in the background.
+	 */
+	private static class PlannedSystem<A extends Algorithm<?>> {
+		private final SystemContext<A> system;
+		private final List<List<RunTask<A>>> iterationTasks = new ArrayList<>();
+		private int runCount = 0;
+		private FutureTask<CNF> modelCNF;
+
+		private PlannedSystem(SystemContext<A> system) {
+			this.system = system;
+		}
+	}
 
-	private CSVWriter dataCSVWriter, modelCSVWriter, algorithmCSVWriter;
+	/**
+	 * Background task that prepares a model. Randomized models of systems that are already running are prepared
+	 * before the models of upcoming systems.
+	 */
+	private static class PrefetchTask extends FutureTask<CNF> implements Comparable<PrefetchTask> {
+		private static final int PRIORITY_RANDOMIZED_MODEL = 0;
+		private static final int PRIORITY_MODEL = 1;
+		private static final AtomicLong taskCount = new AtomicLong();
 
-	protected int algorithmIndex;
-	protected int algorithmIteration;
-	protected K result;
-	protected CNF modelCNF;
-	protected CNF randomizedModelCNF;
+		private final int priority;
+		private final long number = taskCount.incrementAndGet();
+
+		private PrefetchTask(Callable<CNF> callable, int priority) {
+			super(callable);
+			this.priority = priority;
+		}
+
+		@Override
+		public int compareTo(PrefetchTask other) {
+			return (priority != other.priority) ? Integer.compare(priority, other.priority)
+					: Long.compare(number, other.number);
+		}
+	}
+
+	private final RunTask<A> endOfQueue = new RunTask<>(null, 0, 0, 0);
+
+	private ProcessMonitor processMonitor;
+	private CNFCache cnfCache;
+	private ResultMemo resultMemo;
+	private boolean useMemo;
+	private ResumeIndex resumeIndex;
+	private StoppingRule stoppingRule;
+	private TimeoutPruning pruning;
+	private ExecutorService prefetchExecutor;
+	private InputFileCache inputFileCache;
+	private BenchmarkMetrics metrics;
+	private ModelPreloader preloader;
+	private RunCostModel costModel;
+	private Random orderRandom;
 
 	public AAlgorithmBenchmark(String configPath, String configName) throws Exception {
 		super(configPath, configName);
@@ -55,10 +147,29 @@ public abstract class AAlgorithmBenchmark<R, A extends Algorithm<R>, K extends R
 	protected void addCSVWriters() throws IOException {
 		super.addCSVWriters();
 		dataCSVWriter = addCSVWriter("data.csv", Arrays.asList("ModelID", "AlgorithmID", "SystemIteration",
-				"AlgorithmIteration", "InTime", "NoError", "Time"));
-		modelCSVWriter = addCSVWriter("models.csv", Arrays.asList("ModelID", "Name"));
+				"AlgorithmIteration", "InTime", "NoError", "Time", "PeakMemory", "UserTime", "SystemTime",
+				"VoluntaryContextSwitches", "InvoluntaryContextSwitches", "Threads", "OutOfMemory", "NanoTime", "SpawnTime",
+				"InternalTimes", "ClassDataSharing", "Memoized"));
+		modelCSVWriter = addCSVWriter("models.csv",
+				Arrays.asList("ModelID", "Name", "LoadTime", "Variables", "Clauses"));
 		algorithmCSVWriter = addCSVWriter("algorithms.csv",
 				Arrays.asList("ModelID", "AlgorithmID", "Name", "Settings"));
+		if (config.adaptiveRelativeWidth.getValue() > 0) {
+			stopCSVWriter = addCSVWriter("stops.csv", Arrays.asList("ModelID", "AlgorithmID", "SystemIteration",
+					"Iterations", "StopReason", "MedianTime", "RelativeWidth"));
+		}
+		if (isPruning()) {
+			prunedCSVWriter = addCSVWriter("pruned.csv",
+					Arrays.asList("ModelID", "AlgorithmID", "SystemIteration", "AlgorithmIteration", "Reason"));
+		}
+		final List<String> phaseHeader = new ArrayList<>(
+				Arrays.asList("ModelID", "AlgorithmID", "SystemIteration", "AlgorithmIteration"));
+		for (Phase phase : Phase.values()) {
+			if (phase.isPerRun()) {
+				phaseHeader.add(phase.getName());
+			}
+		}
+		phaseCSVWriter = addCSVWriter("phases.csv", phaseHeader);
 	};
 
 	public void run() {
@@ -67,137 +178,1139 @@ public abstract class AAlgorithmBenchmark<R, A extends Algorithm<R>, K extends R
 		if (config.systemIterations.getValue() > 0) {
 			Logger.getInstance().logInfo("Start", 0);
 
-			final ProcessRunner<R,A,K> processRunner = getNewProcessRunner();
-			processRunner.setTimeout(config.timeout.getValue());
+			final long samplingInterval = config.samplingInterval.getValue();
+			processMonitor = ((samplingInterval > 0) && ProcessMonitor.isSupported())
+					? new ProcessMonitor(samplingInterval)
+					: null;
 
-			int systemIndexEnd = config.systemNames.size();
+			cnfCache = null;
+			if (config.cnfCache.getValue()) {
+				try {
+					cnfCache = new CNFCache(config.cnfCachePath, config.cnfCacheSize.getValue() * 1024 * 1024);
+				} catch (IOException e) {
+					Logger.getInstance().logError(e);
+				}
+			}
 
-			Logger.getInstance().incTabLevel();
-			systemLoop: for (systemIndex = 0; systemIndex < systemIndexEnd; systemIndex++) {
-				logSystem();
+			resultMemo = null;
+			useMemo = false;
+			switch (config.memoizeResults.getValue()) {
+			case "false":
+				break;
+			case "true":
+			case "validation":
 				try {
-					algorithmList = prepareAlgorithms();
-				} catch (Exception e) {
+					resultMemo = new ResultMemo(config.memoPath, config.memoSize.getValue() * 1024 * 1024);
+				} catch (IOException e) {
 					Logger.getInstance().logError(e);
-					continue systemLoop;
 				}
-				algorithmIndex = 0;
-				for (A algorithm : algorithmList) {
-					if (algorithm.getIterations() < 0) {
-						algorithm.setIterations(config.algorithmIterations.getValue());
+				if ("validation".equals(config.memoizeResults.getValue())) {
+					if (config.adaptiveRelativeWidth.getValue() > 0) {
+						Logger.getInstance().logInfo("Memoized results are not used for adaptive timing runs", 0);
+					} else {
+						useMemo = true;
 					}
-					writeCSV(algorithmCSVWriter, this::writeAlgorithm);
-					algorithmIndex++;
 				}
+				break;
+			default:
+				Logger.getInstance().logError("Unknown memoization mode " + config.memoizeResults.getValue());
+				break;
+			}
+
+			stoppingRule = (config.adaptiveRelativeWidth.getValue() > 0)
+					? new StoppingRule(config.adaptiveRelativeWidth.getValue(), config.adaptiveMinIterations.getValue(),
+							config.adaptiveTimeBudget.getValue())
+					: null;
+			if ((stoppingRule != null)
+					&& (config.adaptiveMaxIterations.getValue() < config.adaptiveMinIterations.getValue())) {
+				Logger.getInstance().logInfo("Warning: adaptiveMaxIterations is less than adaptiveMinIterations.", 0);
+			}
+
+			resumeIndex = null;
+			if (config.resume.getValue()) {
 				try {
-					modelCNF = prepareModel();
-					writeCSV(modelCSVWriter, this::writeModel);
-				} catch (Exception e) {
+					resumeIndex = ResumeIndex.read(config.csvPath);
+					Logger.getInstance().logInfo("Resuming after " + resumeIndex.getRunCount() + " completed runs", 0);
+				} catch (IOException e) {
 					Logger.getInstance().logError(e);
-					continue systemLoop;
-				}
-				Logger.getInstance().incTabLevel();
-				for (systemIteration = 1; systemIteration <= config.systemIterations.getValue(); systemIteration++) {
-					try {
-						randomizedModelCNF = adaptModel();
-					} catch (Exception e) {
-						Logger.getInstance().logError(e);
-						continue systemLoop;
-					}
-					config.algorithmIterations.getValue();
-					algorithmIndex = -1;
-
-					algorithmLoop: for (A algorithm : algorithmList) {
-						algorithmIndex++;
-						for (algorithmIteration = 1; algorithmIteration <= algorithm
-								.getIterations(); algorithmIteration++) {
-							try {
-								adaptAlgorithm(algorithm);
-							} catch (Exception e) {
-								Logger.getInstance().logError(e);
-								continue algorithmLoop;
-							}
-							try {
-								logRun();
-								result = getNewResult();
-								processRunner.run(algorithm, result);
-								writeCSV(dataCSVWriter, this::writeData);
-							} catch (Exception e) {
-								e.printStackTrace();
-								Logger.getInstance().logError(e);
-								continue algorithmLoop;
-							}
-						}
-					}
+					return;
 				}
+			}
+
+			pruning = isPruning()
+					? new TimeoutPruning(config.pruneAfterTimeouts.getValue(), config.pruneLargerModels.getValue(),
+							resumeIndex)
+					: null;
+
+			prefetchExecutor = (config.prefetchSystems.getValue() > 0)
+					? new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+						final Thread thread = new Thread(runnable, "Prefetch");
+						thread.setDaemon(true);
+						return thread;
+					})
+					: null;
+
+			final List<Slot<R, A, K>> slots;
+			try {
+				inputFileCache = new InputFileCache(config.tempPath.resolve("inputs"));
+				slots = createSlots();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+				return;
+			}
+
+			metrics = new BenchmarkMetrics(config.systemNames.size(), slots.size());
+			if (config.metricsPort.getValue() > 0) {
+				try {
+					metrics.startServer(config.metricsPort.getValue());
+				} catch (IOException e) {
+					Logger.getInstance().logError(e);
+				}
+			}
+
+			preloader = config.preloadModels.getValue() ? preloadModels() : null;
+
+			if (config.calibrationRuns.getValue() > 0) {
+				calibrate(slots);
+			}
+
+			costModel = null;
+			orderRandom = null;
+			switch (config.runOrder.getValue()) {
+			case "input":
+				break;
+			case "lpt":
+				costModel = new RunCostModel(config.outputRootPath, slots.size());
+				break;
+			case "random":
+				costModel = new RunCostModel(config.outputRootPath, slots.size());
+				orderRandom = new Random(config.randomSeed.getValue());
+				break;
+			default:
+				Logger.getInstance().logError("Unknown run order " + config.runOrder.getValue());
+				break;
+			}
+			final long startTime = System.nanoTime();
+
+			Logger.getInstance().incTabLevel();
+			try {
+				if (slots.size() == 1) {
+					final Slot<R, A, K> slot = slots.get(0);
+					produceRuns(task -> executeTask(task, slot));
+				} else {
+					runParallel(slots);
+				}
+			} catch (IllegalStateException e) {
+				Logger.getInstance().logError(e.getMessage());
 				Logger.getInstance().decTabLevel();
+				return;
+			} finally {
+				for (Slot<R, A, K> slot : slots) {
+					slot.getProcessRunner().dispose();
+				}
+				if (processMonitor != null) {
+					processMonitor.close();
+				}
+				if (prefetchExecutor != null) {
+					prefetchExecutor.shutdownNow();
+				}
+				metrics.stopServer();
 			}
 			Logger.getInstance().decTabLevel();
+			PhaseRecorder.getInstance().logSummary();
+			logMakespan(System.nanoTime() - startTime);
 			Logger.getInstance().logInfo("Finished", 0);
 		} else {
 			Logger.getInstance().logInfo("Nothing to do", 0);
 		}
 	}
 
-	protected void writeModel(CSVWriter modelCSVWriter) {
-		modelCSVWriter.addValue(config.systemIDs.get(systemIndex));
-		modelCSVWriter.addValue(config.systemNames.get(systemIndex));
-		modelCSVWriter.addValue(-1);
-		modelCSVWriter.addValue(modelCNF.getVariables().size());
-		modelCSVWriter.addValue(modelCNF.getClauses().size());
+	/**
+	 * Loads the models of all systems in parallel and reports all models that could not be loaded.
+	 *
+	 * @return the preloaded models or {@code null} if loading was interrupted
+	 */
+	private ModelPreloader preloadModels() {
+		final int threads = (config.preloadThreads.getValue() > 0) ? config.preloadThreads.getValue()
+				: Runtime.getRuntime().availableProcessors();
+		final long memoryBudget = (config.preloadMemory.getValue() > 0)
+				? config.preloadMemory.getValue() * 1024 * 1024
+				: Runtime.getRuntime().maxMemory() / 4;
+		final List<Integer> systemIndices = new ArrayList<>(config.systemNames.size());
+		for (int systemIndex = 0; systemIndex < config.systemNames.size(); systemIndex++) {
+			systemIndices.add(systemIndex);
+		}
+		Logger.getInstance().logInfo("Loading " + systemIndices.size() + " models", 0);
+		final ModelPreloader modelPreloader = new ModelPreloader(threads, memoryBudget);
+		try {
+			final long startTime = System.nanoTime();
+			final int failureCount = modelPreloader.preload(systemIndices,
+					systemIndex -> loadModelCNF(new SystemContext<>(systemIndex, config.systemIDs.get(systemIndex),
+							config.systemNames.get(systemIndex), inputFileCache)),
+					systemIndex -> getModelFileSize(new SystemContext<>(systemIndex, config.systemIDs.get(systemIndex),
+							config.systemNames.get(systemIndex), inputFileCache)));
+			Logger.getInstance().logInfo(
+					"Loaded models in " + ((System.nanoTime() - startTime) / 1_000_000L) + "ms", 0);
+			if (failureCount > 0) {
+				Logger.getInstance().logError(failureCount + " models could not be loaded");
+				modelPreloader.logErrors(config.systemNames);
+			}
+			return modelPreloader;
+		} catch (InterruptedException e) {
+			Logger.getInstance().logError(e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the size in bytes of the model file of the given system or -1 if it is unknown
+	 */
+	private long getModelFileSize(SystemContext<A> system) {
+		try {
+			final Path modelFile = getModelFile(system);
+			return (modelFile != null) ? Files.size(modelFile) : -1;
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private List<Slot<R, A, K>> createSlots() throws IOException {
+		final int slotCount = Math.max(1, config.slots.getValue());
+		final int coresPerSlot = config.coresPerSlot.getValue();
+		if ((coresPerSlot > 0) && ((slotCount * coresPerSlot) > Runtime.getRuntime().availableProcessors())) {
+			Logger.getInstance().logInfo("Warning: Slots require more cores than available.", 0);
+		}
+		final Pattern errorPattern = getPattern(config.errorPattern.getValue());
+		final Pattern ignoredErrorPattern = getPattern(config.ignoredErrorPattern.getValue());
+		final ResourceLimits resourceLimits = getResourceLimits();
+		final Path cgroupRoot = getCgroupRoot(resourceLimits);
+		final ClassDataSharing classDataSharing = config.classDataSharing.getValue()
+				? new ClassDataSharing(config.cdsPath)
+				: null;
+		final List<Slot<R, A, K>> slots = new ArrayList<>(slotCount);
+		for (int i = 0; i < slotCount; i++) {
+			final String cpuSet = coresPerSlot > 0
+					? (i * coresPerSlot) + "-" + (((i + 1) * coresPerSlot) - 1)
+					: null;
+			final Path tempPath = slotCount == 1 ? config.tempPath : config.tempPath.resolve("slot" + i);
+			Files.createDirectories(tempPath);
+			final ProcessRunner<R, A, K> processRunner = getNewProcessRunner();
+			processRunner.setTimeout(config.timeout.getValue());
+			processRunner.setCpuSet(cpuSet);
+			processRunner.setWarmupIterations(config.warmupIterations.getValue());
+			processRunner.setProcessMonitor(processMonitor);
+			processRunner.setLogOutput(config.logProcessOutput.getValue());
+			processRunner.setErrorLines(config.errorHeadLines.getValue(), config.errorTailLines.getValue());
+			processRunner.setErrorPattern(errorPattern);
+			processRunner.setIgnoredErrorPattern(ignoredErrorPattern);
+			processRunner.setResourceLimits(resourceLimits, cgroupRoot);
+			processRunner.setTempPath(tempPath);
+			processRunner.setClassDataSharing(classDataSharing);
+			slots.add(new Slot<>(i, cpuSet, tempPath, processRunner));
+		}
+		return slots;
+	}
+
+	private ResourceLimits getResourceLimits() {
+		final ResourceLimits resourceLimits = new ResourceLimits();
+		resourceLimits.setMemoryMax(config.memoryLimit.getValue() * 1024 * 1024);
+		resourceLimits.setCpuMax(config.cpuLimit.getValue());
+		resourceLimits.setPidsMax(config.pidsLimit.getValue());
+		return resourceLimits.isEmpty() ? null : resourceLimits;
 	}
 
-	protected void writeAlgorithm(CSVWriter algorithmCSVWriter) {
-		final Algorithm<?> algorithm = algorithmList.get(algorithmIndex);
-		algorithmCSVWriter.addValue(config.systemIDs.get(systemIndex));
+	/**
+	 * @return the parent group for the groups of all runs or {@code null} if runs are not isolated via cgroups
+	 */
+	private Path getCgroupRoot(ResourceLimits resourceLimits) {
+		if (config.cgroupIsolation.getValue()) {
+			try {
+				return Cgroup.setup(config.cgroupPath.getValue());
+			} catch (IOException e) {
+				Logger.getInstance().logInfo("Warning: Cannot use cgroups (" + e.getMessage() + "), using ulimit instead.",
+						0);
+			}
+		}
+		if ((resourceLimits != null) && (resourceLimits.getCpuMax() > 0)) {
+			Logger.getInstance().logInfo("Warning: CPU limit requires cgroups and is ignored.", 0);
+		}
+		return null;
+	}
+
+	private boolean isPruning() {
+		return (config.pruneAfterTimeouts.getValue() > 0) || config.pruneLargerModels.getValue();
+	}
+
+	private static Pattern getPattern(String regex) {
+		return regex.isEmpty() ? null : Pattern.compile(regex);
+	}
+
+	private void runParallel(List<Slot<R, A, K>> slots) {
+		final BlockingQueue<RunTask<A>> queue = new ArrayBlockingQueue<>(slots.size());
+		final List<Thread> slotThreads = new ArrayList<>(slots.size());
+		for (Slot<R, A, K> slot : slots) {
+			final Thread slotThread = new Thread(() -> {
+				try {
+					for (RunTask<A> task = queue.take(); task != endOfQueue; task = queue.take()) {
+						executeTask(task, slot);
+					}
+				} catch (InterruptedException e) {
+					Logger.getInstance().logError(e);
+				}
+			}, "Slot-" + slot.getIndex());
+			slotThreads.add(slotThread);
+			slotThread.start();
+		}
+		try {
+			produceRuns(task -> {
+				try {
+					queue.put(task);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			for (int i = 0; i < slotThreads.size(); i++) {
+				queue.put(endOfQueue);
+			}
+			for (Thread slotThread : slotThreads) {
+				slotThread.join();
+			}
+		} catch (Exception e) {
+			for (Thread slotThread : slotThreads) {
+				slotThread.interrupt();
+			}
+			for (Thread slotThread : slotThreads) {
+				try {
+					slotThread.join();
+				} catch (InterruptedException e1) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (e instanceof IllegalStateException) {
+				throw (IllegalStateException) e;
+			}
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	/**
+	 * Executes the given task and logs any unexpected exception, such that a failing task does not stop its slot.
+	 */
+	private void executeTask(RunTask<A> task, Slot<R, A, K> slot) {
+		try {
+			executeRun(task, slot);
+		} catch (RuntimeException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private void produceRuns(Consumer<RunTask<A>> dispatcher) {
+		final List<Integer> systemOrder = getSystemOrder();
+		final int lookahead = (prefetchExecutor != null) ? config.prefetchSystems.getValue() : 0;
+		final Deque<PlannedSystem<A>> plannedSystems = new ArrayDeque<>();
+		int position = 0;
+		while (true) {
+			while ((position < systemOrder.size()) && (plannedSystems.size() <= lookahead)) {
+				final PlannedSystem<A> plannedSystem = planSystem(systemOrder.get(position++));
+				if (plannedSystem != null) {
+					if (prefetchExecutor != null) {
+						prefetchExecutor.execute(plannedSystem.modelCNF);
+					}
+					plannedSystems.add(plannedSystem);
+				}
+			}
+			final PlannedSystem<A> plannedSystem = plannedSystems.poll();
+			if (plannedSystem == null) {
+				break;
+			}
+			dispatchSystem(plannedSystem, dispatcher);
+		}
+	}
+
+	/**
+	 * Prepares the algorithms of the given system and collects the runs that have to be executed. The model is not
+	 * loaded yet.
+	 *
+	 * @return the planned system or {@code null} if there is nothing to do
+	 * @throws IllegalStateException if the benchmark is resumed and an algorithm does not match the recorded one
+	 */
+	private PlannedSystem<A> planSystem(int systemIndex) {
+		final int systemIterations = config.systemIterations.getValue();
+		metrics.planSystem();
+		final SystemContext<A> system = new SystemContext<>(systemIndex, config.systemIDs.get(systemIndex),
+				config.systemNames.get(systemIndex), inputFileCache);
+		if ((preloader != null) && (preloader.getError(systemIndex) != null)) {
+			// The error was already reported after preloading
+			return null;
+		}
+		final List<A> algorithmList;
+		try {
+			algorithmList = prepareAlgorithms(system);
+			system.setAlgorithmList(algorithmList);
+		} catch (Exception e) {
+			logSystem(systemIndex);
+			Logger.getInstance().logError(e);
+			return null;
+		}
+		if (resumeIndex != null) {
+			for (int algorithmIndex = 0; algorithmIndex < algorithmList.size(); algorithmIndex++) {
+				final A algorithm = algorithmList.get(algorithmIndex);
+				if (!resumeIndex.matchesAlgorithm(system.getSystemID(), algorithmIndex, algorithm)) {
+					throw new IllegalStateException("Cannot resume: algorithm " + algorithm.getFullName()
+							+ " does not match the recorded algorithm " + algorithmIndex + " of model "
+							+ system.getSystemName() + ". Use a new output directory or disable resume.");
+				}
+			}
+		}
+		for (int algorithmIndex = 0; algorithmIndex < algorithmList.size(); algorithmIndex++) {
+			final A algorithm = algorithmList.get(algorithmIndex);
+			if (algorithm.getIterations() < 0) {
+				algorithm.setIterations((stoppingRule != null) ? config.adaptiveMaxIterations.getValue()
+						: config.algorithmIterations.getValue());
+			}
+			if ((resumeIndex != null) && resumeIndex.containsAlgorithm(system.getSystemID(), algorithmIndex)) {
+				continue;
+			}
+			final int curAlgorithmIndex = algorithmIndex;
+			writeCSV(algorithmCSVWriter, w -> writeAlgorithm(w, system, curAlgorithmIndex));
+		}
+
+		final PlannedSystem<A> plannedSystem = new PlannedSystem<>(system);
+		for (int systemIteration = 1; systemIteration <= systemIterations; systemIteration++) {
+			final List<RunTask<A>> tasks = new ArrayList<>();
+			for (int algorithmIndex = 0; algorithmIndex < algorithmList.size(); algorithmIndex++) {
+				final int algorithmIterations = algorithmList.get(algorithmIndex).getIterations();
+				if (stoppingRule != null) {
+					if (resumeIndex == null) {
+						tasks.add(new RunTask<>(system, systemIteration, algorithmIndex, 1));
+					} else if (!resumeIndex.isStopped(system.getSystemID(), algorithmIndex, systemIteration)) {
+						final int completedIterations = resumeIndex.getIterationCount(system.getSystemID(),
+								algorithmIndex, systemIteration);
+						tasks.add(new RunTask<>(system, systemIteration, algorithmIndex, completedIterations + 1));
+					}
+					continue;
+				}
+				final int batchSize = getBatchSize(algorithmList.get(algorithmIndex));
+				int batchStart = 0;
+				int batchCount = 0;
+				for (int algorithmIteration = 1; algorithmIteration <= algorithmIterations; algorithmIteration++) {
+					if ((resumeIndex == null) || !resumeIndex.isCompleted(system.getSystemID(), algorithmIndex,
+							systemIteration, algorithmIteration)) {
+						if (batchCount++ == 0) {
+							batchStart = algorithmIteration;
+						}
+						if (batchCount == batchSize) {
+							tasks.add(new RunTask<>(system, systemIteration, algorithmIndex, batchStart, batchCount));
+							batchCount = 0;
+						}
+					} else if (batchCount > 0) {
+						tasks.add(new RunTask<>(system, systemIteration, algorithmIndex, batchStart, batchCount));
+						batchCount = 0;
+					}
+				}
+				if (batchCount > 0) {
+					tasks.add(new RunTask<>(system, systemIteration, algorithmIndex, batchStart, batchCount));
+				}
+			}
+			if (!tasks.isEmpty()) {
+				orderTasks(system, tasks);
+				tasks.forEach(metrics::planTask);
+				plannedSystem.iterationTasks.add(tasks);
+				plannedSystem.runCount += tasks.size();
+			}
+		}
+		if ((plannedSystem.runCount == 0) && (resumeIndex != null)) {
+			logSystem(systemIndex);
+			Logger.getInstance().logInfo("All runs completed", 0);
+			if (preloader != null) {
+				preloader.take(systemIndex);
+			}
+			return null;
+		}
+
+		final int firstSystemIteration = plannedSystem.iterationTasks.isEmpty() ? 0
+				: plannedSystem.iterationTasks.get(0).get(0).systemIteration;
+		plannedSystem.modelCNF = new PrefetchTask(() -> {
+			long loadTime = (preloader != null) ? preloader.getLoadTime(systemIndex) : -1;
+			CNF modelCNF = (preloader != null) ? preloader.take(systemIndex) : null;
+			if (modelCNF == null) {
+				final Timer timer = PhaseRecorder.getInstance().start(Phase.LOAD_MODEL);
+				modelCNF = loadModelCNF(system);
+				final long reloadTime = timer.stop();
+				if (loadTime < 0) {
+					loadTime = reloadTime;
+				}
+			}
+			system.setModelCNF(modelCNF);
+			system.setModelLoadTime(loadTime);
+			if ((prefetchExecutor != null) && (firstSystemIteration > 0)) {
+				final FutureTask<CNF> randomizedModelCNF = new FutureTask<>(
+						() -> timedAdaptModel(system, firstSystemIteration));
+				system.getRandomizedModelCNF(firstSystemIteration, randomizedModelCNF).run();
+			}
+			return modelCNF;
+		}, PrefetchTask.PRIORITY_MODEL);
+		return plannedSystem;
+	}
+
+	/**
+	 * Returns the order in which the systems are processed. For the run order "lpt", systems with the longest
+	 * estimated time are processed first. Otherwise, the order of the model list is kept.
+	 */
+	private List<Integer> getSystemOrder() {
+		final List<Integer> systemOrder = new ArrayList<>(config.systemNames.size());
+		for (int systemIndex = 0; systemIndex < config.systemNames.size(); systemIndex++) {
+			systemOrder.add(systemIndex);
+		}
+		if ((costModel != null) && (orderRandom == null)) {
+			final double[] costs = new double[systemOrder.size()];
+			for (int systemIndex = 0; systemIndex < costs.length; systemIndex++) {
+				costs[systemIndex] = costModel.getCost(config.systemNames.get(systemIndex),
+						(preloader != null) ? preloader.getModelSize(systemIndex) : -1);
+			}
+			systemOrder.sort((i1, i2) -> Double.compare(costs[i2], costs[i1]));
+		}
+		return systemOrder;
+	}
+
+	/**
+	 * Measures the spawn time of each distinct calibration command of the algorithms of all systems before any run is
+	 * started. Each slot is calibrated with its own process runner, and all slots are calibrated at the same time, such
+	 * that the measurements are taken under the same conditions as the runs.
+	 */
+	private void calibrate(List<Slot<R, A, K>> slots) {
+		final Set<List<String>> commands = new LinkedHashSet<>();
+		for (int systemIndex = 0; systemIndex < config.systemNames.size(); systemIndex++) {
+			try {
+				for (A algorithm : prepareAlgorithms(new SystemContext<>(systemIndex, config.systemIDs.get(systemIndex),
+						config.systemNames.get(systemIndex), inputFileCache))) {
+					final List<String> command = algorithm.getCalibrationCommand();
+					if (!command.isEmpty()) {
+						commands.add(command);
+					}
+				}
+			} catch (Exception e) {
+				// The error is reported when the system is planned
+			}
+		}
+		if (commands.isEmpty()) {
+			return;
+		}
+		Logger.getInstance().logInfo("Calibrating " + commands.size() + " commands", 0);
+		final List<Thread> slotThreads = new ArrayList<>(slots.size());
+		for (Slot<R, A, K> slot : slots) {
+			final Thread slotThread = new Thread(() -> calibrate(slot, commands), "Slot-" + slot.getIndex());
+			slotThreads.add(slotThread);
+			slotThread.start();
+		}
+		for (Thread slotThread : slotThreads) {
+			try {
+				slotThread.join();
+			} catch (InterruptedException e) {
+				for (Thread otherSlotThread : slotThreads) {
+					otherSlotThread.interrupt();
+				}
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	private void calibrate(Slot<R, A, K> slot, Set<List<String>> commands) {
+		for (List<String> command : commands) {
+			try {
+				final long spawnTime = slot.getProcessRunner().calibrate(command, config.calibrationRuns.getValue());
+				slot.setSpawnTime(command, spawnTime);
+				Logger.getInstance().logInfo(String.format("Spawn time of %s in slot %d: %.3fms",
+						String.join(" ", command), slot.getIndex(), spawnTime / 1e6), 0);
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum number of consecutive iterations of the given algorithm that are run in one process
+	 */
+	private int getBatchSize(A algorithm) {
+		if (!(algorithm instanceof BatchAlgorithm)) {
+			return 1;
+		}
+		final int batchSize = (((BatchAlgorithm<?>) algorithm).getBatchSize() < 0) ? config.batchSize.getValue()
+				: ((BatchAlgorithm<?>) algorithm).getBatchSize();
+		return (batchSize <= 0) ? Integer.MAX_VALUE : batchSize;
+	}
+
+	/**
+	 * Orders the runs of one system iteration according to the run order and adds them to the predicted makespan.
+	 * For "lpt", runs with the longest estimated time come first. For "random", the runs are shuffled, such that the
+	 * algorithms are interleaved randomly.
+	 */
+	private void orderTasks(SystemContext<A> system, List<RunTask<A>> tasks) {
+		if (costModel == null) {
+			return;
+		}
+		final long modelSize = (preloader != null) ? preloader.getModelSize(system.getSystemIndex()) : -1;
+		final Map<Integer, Double> costs = new HashMap<>();
+		for (RunTask<A> task : tasks) {
+			costs.computeIfAbsent(task.algorithmIndex, i -> costModel.getCost(system.getSystemName(),
+					system.getAlgorithmList().get(i).getFullName(), modelSize));
+		}
+		if (orderRandom != null) {
+			Collections.shuffle(tasks, orderRandom);
+		} else {
+			tasks.sort((t1, t2) -> Double.compare(costs.get(t2.algorithmIndex) * t2.iterationCount,
+					costs.get(t1.algorithmIndex) * t1.iterationCount));
+		}
+		for (RunTask<A> task : tasks) {
+			costModel.addPredictedRun(costs.get(task.algorithmIndex) * task.iterationCount);
+		}
+	}
+
+	private void logMakespan(long makespan) {
+		if ((costModel != null) && costModel.hasHistory()) {
+			Logger.getInstance().logInfo(String.format("Predicted makespan: %.1fs, actual makespan: %.1fs",
+					costModel.getPredictedMakespan() / 1e3, makespan / 1e9), 0);
+		} else {
+			Logger.getInstance().logInfo(String.format("Makespan: %.1fs", makespan / 1e9), 0);
+		}
+	}
+
+	/**
+	 * Waits until the model of the given system is loaded and passes all of its runs to the dispatcher.
+	 */
+	private void dispatchSystem(PlannedSystem<A> plannedSystem, Consumer<RunTask<A>> dispatcher) {
+		final SystemContext<A> system = plannedSystem.system;
+		logSystem(system.getSystemIndex());
+		try {
+			plannedSystem.modelCNF.run();
+			try {
+				plannedSystem.modelCNF.get();
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				throw (cause instanceof Exception) ? (Exception) cause : e;
+			}
+			if ((resumeIndex == null) || !resumeIndex.containsModel(system.getSystemID())) {
+				writeCSV(modelCSVWriter, w -> writeModel(w, system));
+			}
+		} catch (Exception e) {
+			Logger.getInstance().logError(e);
+			for (List<RunTask<A>> tasks : plannedSystem.iterationTasks) {
+				tasks.forEach(task -> metrics.finishTask(task, -1));
+			}
+			system.dispose();
+			return;
+		}
+		if (plannedSystem.runCount == 0) {
+			system.dispose();
+			return;
+		}
+		for (List<RunTask<A>> tasks : plannedSystem.iterationTasks) {
+			system.addPendingRuns(tasks.get(0).systemIteration, tasks.size());
+		}
+		Logger.getInstance().incTabLevel();
+		for (List<RunTask<A>> tasks : plannedSystem.iterationTasks) {
+			for (RunTask<A> task : tasks) {
+				metrics.queueTask();
+				dispatcher.accept(task);
+			}
+		}
+		Logger.getInstance().decTabLevel();
+	}
+
+	/**
+	 * Starts to compute the randomized model of the given system iteration in the background, if it has pending
+	 * runs and is not computed yet.
+	 */
+	private void prefetchRandomizedModelCNF(SystemContext<A> system, int systemIteration) {
+		if ((prefetchExecutor != null) && system.hasPendingRuns(systemIteration)) {
+			final FutureTask<CNF> newTask = new PrefetchTask(() -> {
+				final CNF randomizedModelCNF = timedAdaptModel(system, systemIteration);
+				try {
+					system.prepareInputFiles(systemIteration, randomizedModelCNF);
+				} catch (Exception e) {
+					Logger.getInstance().logError(e);
+				}
+				return randomizedModelCNF;
+			}, PrefetchTask.PRIORITY_RANDOMIZED_MODEL);
+			if (system.getRandomizedModelCNF(systemIteration, newTask) == newTask) {
+				prefetchExecutor.execute(newTask);
+			}
+		}
+	}
+
+	/**
+	 * Returns the CNF of the given system from the CNF cache, if possible. Otherwise, the CNF is created via
+	 * {@link #prepareModel(SystemContext)} and stored in the cache.
+	 */
+	private CNF loadModelCNF(SystemContext<A> system) throws Exception {
+		if (cnfCache != null) {
+			final Path modelFile = getModelFile(system);
+			if (modelFile != null) {
+				final String key = cnfCache.getKey(modelFile, getModelSettings());
+				CNF modelCNF = cnfCache.get(key);
+				if (modelCNF == null) {
+					modelCNF = prepareModel(system);
+					if (modelCNF != null) {
+						cnfCache.put(key, modelCNF);
+					}
+				} else {
+					Logger.getInstance().logInfo("Loaded CNF from cache", 1);
+					prepareCachedModel(system, modelCNF);
+				}
+				return modelCNF;
+			}
+		}
+		return prepareModel(system);
+	}
+
+	/**
+	 * Returns the file from which {@link #prepareModel(SystemContext)} reads the model of the given system. The file
+	 * identifies the model in the CNF cache. Subclasses that do not read their models via {@link #getModelReader()}
+	 * must override this method.
+	 *
+	 * @return the model file or {@code null} to not cache the CNF of the given system
+	 */
+	protected Path getModelFile(SystemContext<A> system) {
+		return getModelReader().getModelFile(system.getSystemName());
+	}
+
+	/**
+	 * Is called instead of {@link #prepareModel(SystemContext)} if the CNF of the given system was loaded from the
+	 * CNF cache. Subclasses that keep other state from {@link #prepareModel(SystemContext)} than the CNF must restore
+	 * it here.
+	 */
+	protected void prepareCachedModel(SystemContext<A> system, CNF modelCNF) throws Exception {
+	}
+
+	/**
+	 * Returns a description of all settings that {@link #prepareModel(SystemContext)} uses to convert a feature model
+	 * into a CNF. Cached CNFs are only reused if these settings match. Subclasses must override this method if their
+	 * conversion depends on any configuration.
+	 */
+	protected String getModelSettings() {
+		return getClass().getName();
+	}
+
+	private void executeRun(RunTask<A> task, Slot<R, A, K> slot) {
+		final SystemContext<A> system = task.system;
+		final long startTime = System.nanoTime();
+		boolean executed = false;
+		metrics.startTask();
+		try {
+			if (system.isFailed() || system.isPairFailed(task.systemIteration, task.algorithmIndex)) {
+				return;
+			}
+			final CNF randomizedModelCNF;
+			final A algorithm;
+			final long waitTime;
+			try {
+				final Timer timer = PhaseRecorder.getInstance().start(Phase.WAIT_FOR_MODEL);
+				randomizedModelCNF = getRandomizedModelCNF(system, task.systemIteration);
+				waitTime = timer.stop();
+				prefetchRandomizedModelCNF(system, task.systemIteration + 1);
+				algorithm = getAlgorithm(system, slot, task.algorithmIndex);
+			} catch (Exception e) {
+				Logger.getInstance().logError(e);
+				system.setFailed();
+				return;
+			}
+			if (pruning != null) {
+				final String pruneReason = pruning.getPruneReason(system, task.algorithmIndex, algorithm);
+				if (pruneReason != null) {
+					addPrunedRun(task, task.algorithmIteration, pruneReason);
+					return;
+				}
+			}
+			if (task.iterationCount > 1) {
+				runBatch(task, randomizedModelCNF, algorithm, waitTime, slot);
+			} else if (stoppingRule == null) {
+				runIteration(task, randomizedModelCNF, algorithm, task.algorithmIteration, waitTime, slot);
+			} else {
+				runAdaptive(task, randomizedModelCNF, algorithm, waitTime, slot);
+			}
+			executed = true;
+		} finally {
+			metrics.finishTask(task, executed ? System.nanoTime() - startTime : -1);
+			if (system.finishRun(task.systemIteration)) {
+				checkpoint();
+			}
+		}
+	}
+
+	/**
+	 * Runs the algorithm of the given task once.
+	 *
+	 * @param waitTime the time in nanoseconds the run waited for its randomized model
+	 * @return the result of the run or {@code null} if the run failed
+	 */
+	private K runIteration(RunTask<A> task, CNF randomizedModelCNF, A algorithm, int algorithmIteration,
+			long waitTime, Slot<R, A, K> slot) {
+		final SystemContext<A> system = task.system;
+		final RunContext<R, A, K> run = new RunContext<>(system, task.systemIteration, randomizedModelCNF,
+				task.algorithmIndex, algorithm, algorithmIteration, slot);
+		final long adaptTime;
+		try {
+			final Timer timer = PhaseRecorder.getInstance().start(Phase.ADAPT_ALGORITHM);
+			adaptAlgorithm(run);
+			adaptTime = timer.stop();
+		} catch (Exception e) {
+			Logger.getInstance().logError(e);
+			metrics.addFailedRun(task);
+			system.setPairFailed(task.systemIteration, task.algorithmIndex);
+			return null;
+		}
+		try {
+			logRun(run);
+			run.setResult(getNewResult());
+			run.getResult().setPhaseTime(Phase.WAIT_FOR_MODEL, waitTime);
+			run.getResult().setPhaseTime(Phase.ADAPT_ALGORITHM, adaptTime);
+			final String memoKey = getMemoKey(task, randomizedModelCNF, algorithm);
+			if (!useMemoizedResult(algorithm, memoKey, run.getResult())) {
+				slot.getProcessRunner().run(algorithm, run.getResult());
+				run.getResult().setSpawnTime(slot.getSpawnTime(algorithm.getCalibrationCommand()));
+				memoizeResult(algorithm, memoKey, run.getResult());
+			}
+			recordRun(task, algorithm, run);
+			return run.getResult();
+		} catch (Exception e) {
+			e.printStackTrace();
+			Logger.getInstance().logError(e);
+			metrics.addFailedRun(task);
+			system.setPairFailed(task.systemIteration, task.algorithmIndex);
+			return null;
+		}
+	}
+
+	/**
+	 * Runs the algorithm iterations of the given task in one process of a {@link BatchAlgorithm}. Iterations with a
+	 * memoized result are not passed to the process. The algorithm is adapted for all iterations before the process is
+	 * started, so only the item arguments are kept per iteration. Before the process is restarted after a failed item,
+	 * the finished iterations are recorded and the remaining ones are pruned if the pruning applies now.
+	 */
+	private void runBatch(RunTask<A> task, CNF randomizedModelCNF, A algorithm, long waitTime, Slot<R, A, K> slot) {
+		final SystemContext<A> system = task.system;
+		final List<RunContext<R, A, K>> runs = new ArrayList<>(task.iterationCount);
+		final List<List<String>> itemArguments = new ArrayList<>(task.iterationCount);
+		final String memoKey;
+		try {
+			memoKey = getMemoKey(task, randomizedModelCNF, algorithm);
+			for (int i = 0; i < task.iterationCount; i++) {
+				final RunContext<R, A, K> run = new RunContext<>(system, task.systemIteration, randomizedModelCNF,
+						task.algorithmIndex, algorithm, task.algorithmIteration + i, slot);
+				final Timer timer = PhaseRecorder.getInstance().start(Phase.ADAPT_ALGORITHM);
+				adaptAlgorithm(run);
+				final long adaptTime = timer.stop();
+				logRun(run);
+				run.setResult(getNewResult());
+				run.getResult().setPhaseTime(Phase.WAIT_FOR_MODEL, (i == 0) ? waitTime : 0);
+				run.getResult().setPhaseTime(Phase.ADAPT_ALGORITHM, adaptTime);
+				if (useMemoizedResult(algorithm, memoKey, run.getResult())) {
+					recordRun(task, algorithm, run);
+				} else {
+					itemArguments.add(((BatchAlgorithm<?>) algorithm).getItemArguments());
+					runs.add(run);
+				}
+			}
+		} catch (Exception e) {
+			Logger.getInstance().logError(e);
+			metrics.addFailedRun(task);
+			system.setPairFailed(task.systemIteration, task.algorithmIndex);
+			return;
+		}
+		if (!runs.isEmpty()) {
+			final List<K> results = new ArrayList<>(runs.size());
+			for (RunContext<R, A, K> run : runs) {
+				results.add(run.getResult());
+			}
+			final int[] recordedRuns = { 0 };
+			final String[] pruneReason = { null };
+			final int processedRuns = slot.getProcessRunner().runBatch(algorithm, itemArguments, results,
+					nextRun -> {
+						recordBatchRuns(task, algorithm, memoKey, runs, recordedRuns[0], nextRun);
+						recordedRuns[0] = nextRun;
+						if (pruning != null) {
+							pruneReason[0] = pruning.getPruneReason(system, task.algorithmIndex, algorithm);
+						}
+						return pruneReason[0] == null;
+					});
+			if (pruneReason[0] != null) {
+				for (RunContext<R, A, K> run : runs.subList(processedRuns, runs.size())) {
+					addPrunedRun(task, run.getAlgorithmIteration(), pruneReason[0]);
+				}
+			} else {
+				recordBatchRuns(task, algorithm, memoKey, runs, recordedRuns[0], runs.size());
+			}
+		}
+	}
+
+	private void recordBatchRuns(RunTask<A> task, A algorithm, String memoKey, List<RunContext<R, A, K>> runs,
+			int fromRun, int toRun) {
+		for (RunContext<R, A, K> run : runs.subList(fromRun, toRun)) {
+			memoizeResult(algorithm, memoKey, run.getResult());
+			recordRun(task, algorithm, run);
+		}
+	}
+
+	/**
+	 * Writes the given pruned run to pruned.csv.
+	 */
+	private void addPrunedRun(RunTask<A> task, int algorithmIteration, String pruneReason) {
+		metrics.addPrunedRun(task);
+		writeCSV(prunedCSVWriter, w -> {
+			w.addValue(task.system.getSystemID());
+			w.addValue(task.algorithmIndex);
+			w.addValue(task.systemIteration);
+			w.addValue(algorithmIteration);
+			w.addValue(pruneReason);
+		});
+	}
+
+	private String getMemoKey(RunTask<A> task, CNF randomizedModelCNF, A algorithm) throws IOException {
+		return ((resultMemo != null) && algorithm.isDeterministic())
+				? resultMemo.getKey(task.system.getContentHash(task.systemIteration, randomizedModelCNF),
+						algorithm.getFullName(), config.randomSeed.getValue())
+				: null;
+	}
+
+	/**
+	 * Writes the result of the given run and updates the metrics and the pruning.
+	 */
+	private void recordRun(RunTask<A> task, A algorithm, RunContext<R, A, K> run) {
+		final Timer timer = PhaseRecorder.getInstance().start(Phase.WRITE_RESULTS);
+		writeCSV(dataCSVWriter, w -> writeData(w, run));
+		run.getResult().setPhaseTime(Phase.WRITE_RESULTS, timer.stop());
+		writeCSV(phaseCSVWriter, w -> writePhases(w, run));
+		metrics.addRun(task, run.getResult());
+		if ((pruning != null) && !run.getResult().isTerminatedInTime()
+				&& (run.getResult().getTime() != Result.INVALID_TIME)) {
+			pruning.addTimeout(task.system, task.algorithmIndex, algorithm);
+		}
+	}
+
+	/**
+	 * Repeats the algorithm of the given task until the {@link StoppingRule} is satisfied or a run fails. The
+	 * reason for stopping is written to stops.csv.
+	 */
+	private void runAdaptive(RunTask<A> task, CNF randomizedModelCNF, A algorithm, long waitTime,
+			Slot<R, A, K> slot) {
+		final SystemContext<A> system = task.system;
+		final List<Long> times = (task.algorithmIteration > 1)
+				? resumeIndex.getTimes(system.getSystemID(), task.algorithmIndex, task.systemIteration)
+				: new ArrayList<>();
+		String stopReason = stoppingRule.getStopReason(times, algorithm.getIterations());
+		for (int algorithmIteration = task.algorithmIteration; stopReason == null; algorithmIteration++) {
+			final K result = runIteration(task, randomizedModelCNF, algorithm, algorithmIteration,
+					algorithmIteration == task.algorithmIteration ? waitTime : 0, slot);
+			if (result == null) {
+				stopReason = StoppingRule.ERROR;
+			} else if (!result.isTerminatedInTime()) {
+				stopReason = StoppingRule.TIMEOUT;
+			} else if (!result.isNoError()) {
+				stopReason = StoppingRule.ERROR;
+			} else {
+				times.add(result.getTime());
+				stopReason = stoppingRule.getStopReason(times, algorithm.getIterations());
+			}
+		}
+		final String curStopReason = stopReason;
+		writeCSV(stopCSVWriter, w -> {
+			w.addValue(system.getSystemID());
+			w.addValue(task.algorithmIndex);
+			w.addValue(task.systemIteration);
+			w.addValue(times.size());
+			w.addValue(curStopReason);
+			w.addValue(StoppingRule.getMedian(times));
+			w.addValue(StoppingRule.getRelativeWidth(times));
+		});
+	}
+
+	/**
+	 * Sets the memoized result of the given algorithm, if there is one and the benchmark is a validation run
+	 * ({@code memoizeResults=validation}). The time of the result is set to {@link Result#INVALID_TIME}, as the
+	 * algorithm is not executed. Timing runs ({@code memoizeResults=true}) only store their results.
+	 *
+	 * @return whether a memoized result was found
+	 */
+	private boolean useMemoizedResult(A algorithm, String memoKey, K result) throws IOException {
+		if ((memoKey == null) || !useMemo) {
+			return false;
+		}
+		@SuppressWarnings("unchecked")
+		final R memoizedResult = (R) resultMemo.get(algorithm.getFullName(), algorithm.getVersion(), memoKey);
+		if (memoizedResult == null) {
+			return false;
+		}
+		Logger.getInstance().logInfo("Using memoized result", 1);
+		result.setResult(memoizedResult);
+		result.setTerminatedInTime(true);
+		result.setNoError(true);
+		result.setTime(Result.INVALID_TIME);
+		result.setMemoized(true);
+		return true;
+	}
+
+	private void memoizeResult(A algorithm, String memoKey, K result) {
+		if ((memoKey != null) && result.isTerminatedInTime() && result.isNoError()
+				&& (result.getResult() instanceof Serializable)) {
+			resultMemo.put(algorithm.getFullName(), algorithm.getVersion(), memoKey, (Serializable) result.getResult());
+		}
+	}
+
+	private CNF timedAdaptModel(SystemContext<A> system, int systemIteration) throws Exception {
+		final Timer timer = PhaseRecorder.getInstance().start(Phase.ADAPT_MODEL);
+		final CNF randomizedModelCNF = adaptModel(system, systemIteration);
+		timer.stop();
+		return randomizedModelCNF;
+	}
+
+	private CNF getRandomizedModelCNF(SystemContext<A> system, int systemIteration) throws Exception {
+		final FutureTask<CNF> newTask = new FutureTask<>(() -> timedAdaptModel(system, systemIteration));
+		final FutureTask<CNF> task = system.getRandomizedModelCNF(systemIteration, newTask);
+		task.run();
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			throw (cause instanceof Exception) ? (Exception) cause : e;
+		}
+	}
+
+	private A getAlgorithm(SystemContext<A> system, Slot<R, A, K> slot, int algorithmIndex) throws Exception {
+		List<A> algorithmList = system.getAlgorithmList(slot.getIndex());
+		if (algorithmList == null) {
+			algorithmList = prepareAlgorithms(system);
+			final List<A> originalAlgorithmList = system.getAlgorithmList();
+			for (int i = 0; i < algorithmList.size(); i++) {
+				algorithmList.get(i).setIterations(originalAlgorithmList.get(i).getIterations());
+			}
+			system.setAlgorithmList(slot.getIndex(), algorithmList);
+		}
+		return algorithmList.get(algorithmIndex);
+	}
+
+	protected void writePhases(CSVWriter phaseCSVWriter, RunContext<R, A, K> run) {
+		phaseCSVWriter.addValue(run.getSystem().getSystemID());
+		phaseCSVWriter.addValue(run.getAlgorithmIndex());
+		phaseCSVWriter.addValue(run.getSystemIteration());
+		phaseCSVWriter.addValue(run.getAlgorithmIteration());
+		for (Phase phase : Phase.values()) {
+			if (phase.isPerRun()) {
+				phaseCSVWriter.addValue(run.getResult().getPhaseTime(phase));
+			}
+		}
+	}
+
+	protected void writeModel(CSVWriter modelCSVWriter, SystemContext<A> system) {
+		modelCSVWriter.addValue(system.getSystemID());
+		modelCSVWriter.addValue(system.getSystemName());
+		modelCSVWriter.addValue(system.getModelLoadTime() / 1_000_000L);
+		modelCSVWriter.addValue(system.getModelCNF().getVariables().size());
+		modelCSVWriter.addValue(system.getModelCNF().getClauses().size());
+	}
+
+	protected void writeAlgorithm(CSVWriter algorithmCSVWriter, SystemContext<A> system, int algorithmIndex) {
+		final Algorithm<?> algorithm = system.getAlgorithmList().get(algorithmIndex);
+		algorithmCSVWriter.addValue(system.getSystemID());
 		algorithmCSVWriter.addValue(algorithmIndex);
 		algorithmCSVWriter.addValue(algorithm.getName());
 		algorithmCSVWriter.addValue(algorithm.getParameterSettings());
 	}
 
-	protected void writeData(CSVWriter dataCSVWriter) {
-		dataCSVWriter.addValue(config.systemIDs.get(systemIndex));
-		dataCSVWriter.addValue(algorithmIndex);
-		dataCSVWriter.addValue(systemIteration);
-		dataCSVWriter.addValue(algorithmIteration);
+	protected void writeData(CSVWriter dataCSVWriter, RunContext<R, A, K> run) {
+		final K result = run.getResult();
+		dataCSVWriter.addValue(run.getSystem().getSystemID());
+		dataCSVWriter.addValue(run.getAlgorithmIndex());
+		dataCSVWriter.addValue(run.getSystemIteration());
+		dataCSVWriter.addValue(run.getAlgorithmIteration());
 		dataCSVWriter.addValue(result.isTerminatedInTime());
 		dataCSVWriter.addValue(result.isNoError());
 		dataCSVWriter.addValue(result.getTime());
+		dataCSVWriter.addValue(result.getPeakMemory());
+		dataCSVWriter.addValue(result.getUserTime());
+		dataCSVWriter.addValue(result.getSystemTime());
+		dataCSVWriter.addValue(result.getVoluntaryContextSwitches());
+		dataCSVWriter.addValue(result.getInvoluntaryContextSwitches());
+		dataCSVWriter.addValue(result.getThreads());
+		dataCSVWriter.addValue(result.isOutOfMemory());
+		dataCSVWriter.addValue(result.getNanoTime());
+		dataCSVWriter.addValue(result.getSpawnTime());
+		dataCSVWriter.addValue(formatInternalTimes(result.getInternalTimes()));
+		dataCSVWriter.addValue(result.isClassDataSharing());
+		dataCSVWriter.addValue(result.isMemoized());
+	}
+
+	/**
+	 * @return the given times as comma-separated list of name=time pairs
+	 */
+	private static String formatInternalTimes(Map<String, Long> internalTimes) {
+		final StringBuilder sb = new StringBuilder();
+		for (Entry<String, Long> internalTime : internalTimes.entrySet()) {
+			if (sb.length() > 0) {
+				sb.append(',');
+			}
+			sb.append(internalTime.getKey().replaceAll("[;,=\\s]", "_"));
+			sb.append('=');
+			sb.append(internalTime.getValue());
+		}
+		return sb.toString();
 	}
 
-	private void logRun() {
+	private void logRun(RunContext<R, A, K> run) {
+		final SystemContext<A> system = run.getSystem();
 		StringBuilder sb = new StringBuilder();
-		sb.append(systemIndex + 1);
+		sb.append(system.getSystemIndex() + 1);
 		sb.append("/");
 		sb.append(config.systemNames.size());
 		sb.append(" | ");
-		sb.append(systemIteration);
+		sb.append(run.getSystemIteration());
 		sb.append("/");
 		sb.append(config.systemIterations.getValue());
 		sb.append(" | (");
-		sb.append(algorithmIndex + 1);
+		sb.append(run.getAlgorithmIndex() + 1);
 		sb.append("/");
-		sb.append(algorithmList.size());
+		sb.append(system.getAlgorithmList().size());
 		sb.append(") ");
-		sb.append(algorithmList.get(algorithmIndex).getFullName());
+		sb.append(run.getAlgorithm().getFullName());
 		sb.append(" | ");
-		sb.append(algorithmIteration);
+		sb.append(run.getAlgorithmIteration());
 		sb.append("/");
-		sb.append(algorithmList.get(algorithmIndex).getIterations());
+		sb.append(run.getAlgorithm().getIterations());
 		Logger.getInstance().logInfo(sb.toString(), 0);
 	}
 
-	protected abstract CNF prepareModel() throws Exception;
+	/**
+	 * Creates the model of the given system. Is called on a background thread while the runs of the previous
+	 * system are executed, unless prefetching is disabled (i.e., prefetchSystems is 0). Is not called if the CNF
+	 * cache contains the model (see {@link #prepareCachedModel(SystemContext, CNF)}).
+	 */
+	protected abstract CNF prepareModel(SystemContext<A> system) throws Exception;
 
-	protected abstract CNF adaptModel() throws Exception;
+	/**
+	 * Creates the model that is used as input for all algorithms in the given system iteration. May be called
+	 * concurrently and in any order, thus any randomization must only depend on the system and the iteration.
+	 */
+	protected abstract CNF adaptModel(SystemContext<A> system, int systemIteration) throws Exception;
 
-	protected abstract void adaptAlgorithm(A algorithm) throws Exception;
+	/**
+	 * Prepares the algorithm for the given run. Input files for the algorithm should be obtained via
+	 * {@link RunContext#getInputFile(String, de.ovgu.featureide.fm.benchmark.util.InputFileCache.IInputWriter)}, such
+	 * that each file is written only once per system iteration.
+	 */
+	protected abstract void adaptAlgorithm(RunContext<R, A, K> run) throws Exception;
 
-	protected abstract List<A> prepareAlgorithms() throws Exception;
+	/**
+	 * Creates a new list of algorithms for the given system. Is called once for each slot that runs algorithms on
+	 * the system, such that no algorithm instance is shared between slots.
+	 */
+	protected abstract List<A> prepareAlgorithms(SystemContext<A> system) throws Exception;
 
 	protected abstract K getNewResult();
-	
-	protected abstract ProcessRunner<R,A,K> getNewProcessRunner();
+
+	protected abstract ProcessRunner<R, A, K> getNewProcessRunner();
 
 	public CSVWriter getDataCSVWriter() {
 		return dataCSVWriter;
@@ -210,6 +1323,5 @@ public abstract class AAlgorithmBenchmark<R, A extends Algorithm<R>, K extends R
 	public CSVWriter getAlgorithmCSVWriter() {
 		return algorithmCSVWriter;
 	}
-	
 
 }
@@ -33,7 +33,13 @@ import java.util.function.Consumer;
 import org.sk.utils.Logger;
 import org.sk.utils.io.CSVWriter;
 
+import de.ovgu.featureide.fm.benchmark.output.BatchedResultSink;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarResultSink;
+import de.ovgu.featureide.fm.benchmark.output.DirectResultSink;
+import de.ovgu.featureide.fm.benchmark.output.IResultSink;
+import de.ovgu.featureide.fm.benchmark.output.RecordingCSVWriter;
 import de.ovgu.featureide.fm.benchmark.properties.IProperty;
+import de.ovgu.featureide.fm.benchmark.util.FeatureModelReader;
 
 /**
  * @author Sebastian Krieter
@@ -43,9 +49,9 @@ public abstract class ABenchmark {
 	protected final BenchmarkConfig config;
 
 	private final LinkedHashMap<String, CSVWriter> csvWriterList = new LinkedHashMap<>();
-	
-	protected int systemIndex;
-	protected int systemIteration;
+
+	private FeatureModelReader modelReader = null;
+	private IResultSink resultSink = new DirectResultSink();
 
 	public ABenchmark(String configPath, String configName) throws Exception {
 		config = new BenchmarkConfig(configPath);
@@ -54,6 +60,18 @@ public abstract class ABenchmark {
 
 	public void init() throws Exception {
 		setupDirectories();
+		final int writeBatchSize = config.writeBatchSize.getValue();
+		final String outputFormat = config.outputFormat.getValue();
+		final IResultSink csvSink;
+		if ("columnar".equals(outputFormat)) {
+			csvSink = null;
+		} else {
+			csvSink = (writeBatchSize > 1) ? new BatchedResultSink(writeBatchSize, config.writeBatchInterval.getValue())
+					: new DirectResultSink();
+		}
+		resultSink = ("columnar".equals(outputFormat) || "both".equals(outputFormat))
+				? new ColumnarResultSink(csvSink, config.append.getValue() || config.resume.getValue())
+				: csvSink;
 		addCSVWriters();
 		for (CSVWriter writer : csvWriterList.values()) {
 			writer.flush();
@@ -83,6 +101,13 @@ public abstract class ABenchmark {
 	};
 
 	public void dispose() {
+		resultSink.close();
+		synchronized (this) {
+			if (modelReader != null) {
+				modelReader.close();
+				modelReader = null;
+			}
+		}
 		Logger.getInstance().uninstall();
 		if (config.debug.getValue() == 0) {
 			deleteTempFolder();
@@ -113,13 +138,24 @@ public abstract class ABenchmark {
 		printConfigFile();
 	}
 
+	/**
+	 * @return a reader for the models in the configured model path that is kept open until {@link #dispose()}
+	 */
+	protected synchronized FeatureModelReader getModelReader() {
+		if (modelReader == null) {
+			modelReader = new FeatureModelReader();
+			modelReader.setPathToModels(config.modelPath);
+		}
+		return modelReader;
+	}
+
 	private void printConfigFile() {
 		for (IProperty prop : BenchmarkConfig.propertyList) {
 			Logger.getInstance().logInfo(prop.toString(), 0);
 		}
 	}
 	
-	protected void logSystem() {
+	protected void logSystem(int systemIndex) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("Processing System: ");
 		sb.append(config.systemNames.get(systemIndex));
@@ -134,13 +170,14 @@ public abstract class ABenchmark {
 	protected CSVWriter addCSVWriter(String fileName, List<String> csvHeader) throws IOException {
 		final CSVWriter existingCSVWriter = csvWriterList.get(fileName);
 		if (existingCSVWriter == null) {
-			CSVWriter csvWriter = new CSVWriter();
-			csvWriter.setAppend(config.append.getValue());
+			CSVWriter csvWriter = new RecordingCSVWriter();
+			csvWriter.setAppend(config.append.getValue() || config.resume.getValue());
 			csvWriter.setOutputDirectory(config.csvPath);
 			csvWriter.setFileName(fileName);
 			csvWriter.setKeepLines(false);
 			csvWriter.setHeader(csvHeader);
 			csvWriterList.put(fileName, csvWriter);
+			resultSink.addWriter(csvWriter, config.csvPath.resolve(fileName));
 			return csvWriter;
 		} else {
 			return existingCSVWriter;
@@ -161,14 +198,14 @@ public abstract class ABenchmark {
 	}
 	
 	protected final void writeCSV(CSVWriter writer, Consumer<CSVWriter> writing) {
-		writer.createNewLine();
-		try {
-			writing.accept(writer);
-		} catch (Exception e) {
-			writer.resetLine();
-			throw e;
-		}
-		writer.flush();
+		resultSink.write(writer, writing);
+	}
+
+	/**
+	 * Ensures that all rows written so far are stored on disk.
+	 */
+	protected void checkpoint() {
+		resultSink.checkpoint();
 	}
 
 }
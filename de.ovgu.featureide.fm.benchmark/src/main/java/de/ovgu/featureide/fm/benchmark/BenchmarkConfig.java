@@ -32,6 +32,7 @@ import org.sk.utils.Logger;
 import org.sk.utils.io.NameListReader;
 
 import de.ovgu.featureide.fm.benchmark.properties.BoolProperty;
+import de.ovgu.featureide.fm.benchmark.properties.DoubleProperty;
 import de.ovgu.featureide.fm.benchmark.properties.IProperty;
 import de.ovgu.featureide.fm.benchmark.properties.IntProperty;
 import de.ovgu.featureide.fm.benchmark.properties.LongProperty;
@@ -46,6 +47,9 @@ public class BenchmarkConfig {
 	private static final String DEFAULT_RESOURCE_DIRECTORY = "resources";
 	private static final String DEFAULT_MODELS_DIRECTORY = "models";
 	private static final String DEFAULT_CONFIG_DIRECTORY = "config";
+	private static final String DEFAULT_CNF_CACHE_DIRECTORY = "cnf-cache";
+	private static final String DEFAULT_MEMO_DIRECTORY = "memo";
+	private static final String CDS_DIRECTORY = "cds";
 
 	protected static final List<IProperty> propertyList = new LinkedList<>();
 
@@ -54,13 +58,56 @@ public class BenchmarkConfig {
 	public final StringProperty resourcesPathProperty = new StringProperty("resources");
 
 	public final BoolProperty append = new BoolProperty("append");
+	public final BoolProperty resume = new BoolProperty("resume");
+	public final IntProperty writeBatchSize = new IntProperty("writeBatchSize", 1);
+	public final LongProperty writeBatchInterval = new LongProperty("writeBatchInterval", 5000L);
+	public final StringProperty outputFormat = new StringProperty("outputFormat", "csv");
 	public final IntProperty debug = new IntProperty("debug");
 	public final IntProperty verbosity = new IntProperty("verbosity");
+	public final BoolProperty logProcessOutput = new BoolProperty("logProcessOutput", Boolean.TRUE);
+	public final IntProperty errorHeadLines = new IntProperty("errorHeadLines", 50);
+	public final IntProperty errorTailLines = new IntProperty("errorTailLines", 50);
+	public final StringProperty errorPattern = new StringProperty("errorPattern");
+	public final StringProperty ignoredErrorPattern = new StringProperty("ignoredErrorPattern");
 	public final LongProperty timeout = new LongProperty("timeout", Long.MAX_VALUE);
+	public final IntProperty pruneAfterTimeouts = new IntProperty("pruneAfterTimeouts", 0);
+	public final BoolProperty pruneLargerModels = new BoolProperty("pruneLargerModels");
 	public final Seed randomSeed = new Seed();
 
 	public final IntProperty systemIterations = new IntProperty("systemIterations", 1);
 	public final IntProperty algorithmIterations = new IntProperty("algorithmIterations", 1);
+	public final DoubleProperty adaptiveRelativeWidth = new DoubleProperty("adaptiveRelativeWidth");
+	public final IntProperty adaptiveMinIterations = new IntProperty("adaptiveMinIterations", 5);
+	public final IntProperty adaptiveMaxIterations = new IntProperty("adaptiveMaxIterations", 100);
+	public final LongProperty adaptiveTimeBudget = new LongProperty("adaptiveTimeBudget", Long.MAX_VALUE);
+
+	public final IntProperty slots = new IntProperty("slots", 1);
+	public final IntProperty coresPerSlot = new IntProperty("coresPerSlot", 0);
+	public final IntProperty warmupIterations = new IntProperty("warmupIterations", 0);
+	public final IntProperty batchSize = new IntProperty("batchSize", 0);
+	public final IntProperty calibrationRuns = new IntProperty("calibrationRuns", 0);
+	public final BoolProperty classDataSharing = new BoolProperty("classDataSharing");
+	public final LongProperty samplingInterval = new LongProperty("samplingInterval", 0L);
+	public final IntProperty prefetchSystems = new IntProperty("prefetchSystems", 1);
+	public final StringProperty runOrder = new StringProperty("runOrder", "input");
+	public final BoolProperty preloadModels = new BoolProperty("preloadModels");
+	public final IntProperty preloadThreads = new IntProperty("preloadThreads", 0);
+	public final LongProperty preloadMemory = new LongProperty("preloadMemory", 0L);
+	public final IntProperty metricsPort = new IntProperty("metricsPort", 0);
+
+	public final BoolProperty cgroupIsolation = new BoolProperty("cgroupIsolation");
+	public final StringProperty cgroupPath = new StringProperty("cgroupPath");
+	public final LongProperty memoryLimit = new LongProperty("memoryLimit", 0L);
+	public final DoubleProperty cpuLimit = new DoubleProperty("cpuLimit");
+	public final LongProperty pidsLimit = new LongProperty("pidsLimit", 0L);
+
+	public final BoolProperty cnfCache = new BoolProperty("cnfCache");
+	public final StringProperty cnfCachePathProperty = new StringProperty("cnfCachePath");
+	public final LongProperty cnfCacheSize = new LongProperty("cnfCacheSize", 4096L);
+
+	public final StringProperty memoizeResults = new StringProperty("memoizeResults", "false");
+	public final StringProperty memoPathProperty = new StringProperty("memoPath");
+	public final LongProperty memoSize = new LongProperty("memoSize", 1024L);
 
 	public Path configPath;
 	public Path outputPath;
@@ -70,6 +117,9 @@ public class BenchmarkConfig {
 	public Path csvPath;
 	public Path tempPath;
 	public Path logPath;
+	public Path cnfCachePath;
+	public Path memoPath;
+	public Path cdsPath;
 	public List<String> systemNames;
 	public List<Integer> systemIDs;
 
@@ -101,6 +151,10 @@ public class BenchmarkConfig {
 
 		modelPath = resourcePath.resolve(
 				(modelsPathProperty.getValue().isEmpty()) ? DEFAULT_MODELS_DIRECTORY : modelsPathProperty.getValue());
+		cnfCachePath = cnfCachePathProperty.getValue().isEmpty() ? outputRootPath.resolve(DEFAULT_CNF_CACHE_DIRECTORY)
+				: Paths.get(cnfCachePathProperty.getValue());
+		memoPath = memoPathProperty.getValue().isEmpty() ? outputRootPath.resolve(DEFAULT_MEMO_DIRECTORY)
+				: Paths.get(memoPathProperty.getValue());
 	}
 
 	public void setup() {
@@ -146,6 +200,7 @@ public class BenchmarkConfig {
 		outputPath = outputRootPath.resolve(currentOutputMarker);
 		csvPath = outputPath.resolve("data");
 		tempPath = outputPath.resolve("temp");
+		cdsPath = outputPath.resolve(CDS_DIRECTORY);
 		logPath = outputPath.resolve("log-" + System.currentTimeMillis());
 	}
 
@@ -0,0 +1,302 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.ovgu.featureide.fm.benchmark.process.Result;
+import de.ovgu.featureide.fm.benchmark.util.Histogram;
+import de.ovgu.featureide.fm.benchmark.util.Phase;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder;
+
+/**
+ * Collects progress metrics of a benchmark and optionally exposes them in the Prometheus text format via an HTTP
+ * endpoint that is bound to localhost. Recording only updates counters and does not allocate any memory. The metrics
+ * are formatted only when they are requested.
+ * <p>
+ * The estimated remaining time is computed from the remaining runs of each algorithm and the mean time per run that
+ * was observed for this algorithm so far. Runs of systems that are not planned yet are extrapolated from the planned
+ * systems.
+ *
+ * @author Sebastian Krieter
+ */
+class BenchmarkMetrics {
+
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+	/**
+	 * Metrics of one algorithm. Resolved once per task when it is planned (see {@link RunTask#metrics}).
+	 */
+	static class AlgorithmMetrics {
+		private final LongAdder completedRuns = new LongAdder();
+		private final LongAdder failedRuns = new LongAdder();
+		private final LongAdder timedOutRuns = new LongAdder();
+		private final LongAdder outOfMemoryRuns = new LongAdder();
+		private final LongAdder prunedRuns = new LongAdder();
+		private final LongAdder plannedTasks = new LongAdder();
+		private final LongAdder finishedTasks = new LongAdder();
+		private final LongAdder executedTasks = new LongAdder();
+		private final LongAdder taskTime = new LongAdder();
+		private final Histogram runTime = new Histogram();
+	}
+
+	private final Map<String, AlgorithmMetrics> algorithmMetrics = new ConcurrentHashMap<>();
+	private final AtomicInteger plannedSystems = new AtomicInteger();
+	private final LongAdder queuedTasks = new LongAdder();
+	private final StringBuilder sb = new StringBuilder();
+	private final long startTime = System.nanoTime();
+	private final int systemCount;
+	private final int slotCount;
+
+	private HttpServer server;
+
+	/**
+	 * @param systemCount the number of systems of the benchmark
+	 * @param slotCount the number of slots that execute runs concurrently
+	 */
+	BenchmarkMetrics(int systemCount, int slotCount) {
+		this.systemCount = systemCount;
+		this.slotCount = slotCount;
+	}
+
+	/**
+	 * Starts the HTTP endpoint on the given port. The metrics are served at /metrics.
+	 */
+	void startServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+	}
+
+	void stopServer() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+
+	void planSystem() {
+		plannedSystems.incrementAndGet();
+	}
+
+	void planTask(RunTask<?> task) {
+		final String name = task.system.getAlgorithmList().get(task.algorithmIndex).getFullName();
+		task.metrics = algorithmMetrics.computeIfAbsent(name, k -> new AlgorithmMetrics());
+		task.metrics.plannedTasks.increment();
+	}
+
+	void queueTask() {
+		queuedTasks.increment();
+	}
+
+	void startTask() {
+		queuedTasks.decrement();
+	}
+
+	/**
+	 * @param time the time in nanoseconds that was needed to execute the task or -1 if the task was skipped
+	 */
+	void finishTask(RunTask<?> task, long time) {
+		final AlgorithmMetrics metrics = task.metrics;
+		metrics.finishedTasks.increment();
+		if (time >= 0) {
+			metrics.executedTasks.increment();
+			metrics.taskTime.add(time);
+		}
+	}
+
+	void addRun(RunTask<?> task, Result<?> result) {
+		final AlgorithmMetrics metrics = task.metrics;
+		if (!result.isTerminatedInTime()) {
+			metrics.timedOutRuns.increment();
+		} else if (result.isOutOfMemory()) {
+			metrics.outOfMemoryRuns.increment();
+		} else if (!result.isNoError()) {
+			metrics.failedRuns.increment();
+		} else {
+			metrics.completedRuns.increment();
+			if (result.getNanoTime() >= 0) {
+				metrics.runTime.record(result.getNanoTime());
+			}
+		}
+	}
+
+	void addFailedRun(RunTask<?> task) {
+		task.metrics.failedRuns.increment();
+	}
+
+	void addPrunedRun(RunTask<?> task) {
+		task.metrics.prunedRuns.increment();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			final byte[] response = format().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	synchronized String format() {
+		sb.setLength(0);
+
+		appendType("benchmark_runs_total", "Number of finished algorithm runs.", "counter");
+		for (Entry<String, AlgorithmMetrics> entry : algorithmMetrics.entrySet()) {
+			final AlgorithmMetrics metrics = entry.getValue();
+			appendRunCount(entry.getKey(), "completed", metrics.completedRuns.sum());
+			appendRunCount(entry.getKey(), "failed", metrics.failedRuns.sum());
+			appendRunCount(entry.getKey(), "timeout", metrics.timedOutRuns.sum());
+			appendRunCount(entry.getKey(), "out_of_memory", metrics.outOfMemoryRuns.sum());
+			appendRunCount(entry.getKey(), "pruned", metrics.prunedRuns.sum());
+		}
+
+		appendType("benchmark_run_time_seconds", "Time of completed algorithm runs.", "histogram");
+		for (Entry<String, AlgorithmMetrics> entry : algorithmMetrics.entrySet()) {
+			appendHistogram("benchmark_run_time_seconds", "algorithm", entry.getKey(), entry.getValue().runTime);
+		}
+
+		appendType("benchmark_phase_seconds", "Time spent in the phases of the benchmark harness.", "histogram");
+		for (Phase phase : Phase.values()) {
+			appendHistogram("benchmark_phase_seconds", "phase", phase.getName(),
+					PhaseRecorder.getInstance().getHistogram(phase));
+		}
+
+		long remainingTasks = 0;
+		long finishedTasks = 0;
+		long executedTasks = 0;
+		long taskTime = 0;
+		for (AlgorithmMetrics metrics : algorithmMetrics.values()) {
+			finishedTasks += metrics.finishedTasks.sum();
+			executedTasks += metrics.executedTasks.sum();
+			taskTime += metrics.taskTime.sum();
+		}
+		final double meanTaskTime = executedTasks > 0 ? (double) taskTime / executedTasks : 0;
+		final int curPlannedSystems = plannedSystems.get();
+		final double extrapolation = curPlannedSystems > 0
+				? (double) (systemCount - curPlannedSystems) / curPlannedSystems
+				: 0;
+		double remainingTime = 0;
+		for (AlgorithmMetrics metrics : algorithmMetrics.values()) {
+			final long plannedTasks = metrics.plannedTasks.sum();
+			final double remaining = (plannedTasks - metrics.finishedTasks.sum()) + (plannedTasks * extrapolation);
+			final long curExecutedTasks = metrics.executedTasks.sum();
+			remainingTasks += Math.round(remaining);
+			remainingTime += remaining
+					* (curExecutedTasks > 0 ? (double) metrics.taskTime.sum() / curExecutedTasks : meanTaskTime);
+		}
+
+		appendGauge("benchmark_queued_runs", "Number of runs that wait for a free slot.", queuedTasks.sum());
+		appendGauge("benchmark_finished_runs", "Number of runs that are finished or skipped.", finishedTasks);
+		appendGauge("benchmark_remaining_runs", "Estimated number of remaining runs.", remainingTasks);
+		appendGauge("benchmark_planned_systems", "Number of systems for which the runs are planned.",
+				curPlannedSystems);
+		appendGauge("benchmark_systems", "Number of systems of the benchmark.", systemCount);
+		appendGauge("benchmark_elapsed_seconds", "Time since the start of the benchmark.",
+				(System.nanoTime() - startTime) / NANOS_PER_SECOND);
+		appendGauge("benchmark_eta_seconds", "Estimated remaining time of the benchmark.",
+				remainingTime / slotCount / NANOS_PER_SECOND);
+		return sb.toString();
+	}
+
+	private void appendType(String name, String help, String type) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private void appendGauge(String name, String help, double value) {
+		appendType(name, help, "gauge");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	private void appendRunCount(String algorithm, String status, long value) {
+		sb.append("benchmark_runs_total{algorithm=\"");
+		appendLabelValue(algorithm);
+		sb.append("\",status=\"").append(status).append("\"} ").append(value).append('\n');
+	}
+
+	/**
+	 * Appends the cumulative buckets of the given histogram of nanoseconds. Buckets below the smallest and above the
+	 * largest recorded value are omitted. The counts are taken from the buckets, such that they are consistent during
+	 * concurrent updates.
+	 */
+	private void appendHistogram(String name, String label, String labelValue, Histogram histogram) {
+		final long max = histogram.getMax();
+		long count = 0;
+		for (int i = 0; i < (Histogram.BUCKET_COUNT - 1); i++) {
+			final long previousUpperBound = i > 0 ? Histogram.getUpperBound(i - 1) : -1;
+			count += histogram.getBucketCount(i);
+			if ((count == 0) || (previousUpperBound >= max)) {
+				continue;
+			}
+			final long upperBound = Histogram.getUpperBound(i);
+			sb.append(name).append("_bucket{").append(label).append("=\"");
+			appendLabelValue(labelValue);
+			sb.append("\",le=\"").append(upperBound / NANOS_PER_SECOND).append("\"} ").append(count).append('\n');
+		}
+		sb.append(name).append("_bucket{").append(label).append("=\"");
+		appendLabelValue(labelValue);
+		sb.append("\",le=\"+Inf\"} ").append(count).append('\n');
+		sb.append(name).append("_sum{").append(label).append("=\"");
+		appendLabelValue(labelValue);
+		sb.append("\"} ").append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+		sb.append(name).append("_count{").append(label).append("=\"");
+		appendLabelValue(labelValue);
+		sb.append("\"} ").append(count).append('\n');
+	}
+
+	private void appendLabelValue(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			default:
+				sb.append(c);
+				break;
+			}
+		}
+	}
+
+}
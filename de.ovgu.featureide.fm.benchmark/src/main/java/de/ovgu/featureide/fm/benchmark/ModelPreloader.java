@@ -0,0 +1,249 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import org.sk.utils.Logger;
+
+import de.ovgu.featureide.fm.benchmark.util.Phase;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder.Timer;
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+import de.ovgu.featureide.fm.core.analysis.cnf.LiteralSet;
+
+/**
+ * Loads the models of all systems in parallel before the first run starts. The loaded CNFs are kept in memory as long
+ * as their estimated size fits into a given budget.
+ * <p>
+ * Before a model is loaded, the memory needed while loading it is estimated from the size of its file and reserved
+ * from the budget, such that large models are loaded with less concurrency. Models whose estimate does not fit into
+ * the budget at all are not preloaded and are loaded when their system is processed.
+ *
+ * @author Sebastian Krieter
+ */
+class ModelPreloader {
+
+	@FunctionalInterface
+	interface IModelLoader {
+		CNF load(int systemIndex) throws Exception;
+	}
+
+	private static class PreloadedModel {
+		private CNF cnf;
+		private long size;
+		private long modelSize = -1;
+		private long loadTime;
+		private Exception error;
+	}
+
+	private final int threads;
+	private final long memoryBudget;
+
+	/**
+	 * Factor between the size of a model file and the memory that is needed while loading and converting the model.
+	 */
+	private static final long LOAD_MEMORY_FACTOR = 16;
+
+	private final Map<Integer, PreloadedModel> models = new ConcurrentHashMap<>();
+	private long usedMemory = 0;
+	private long loadingMemory = 0;
+
+	/**
+	 * @param threads the number of models that are loaded at the same time
+	 * @param memoryBudget the maximum estimated size in bytes of all CNFs that are kept in memory
+	 */
+	ModelPreloader(int threads, long memoryBudget) {
+		this.threads = threads;
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Loads the models of the given systems and blocks until all models are loaded.
+	 *
+	 * @param fileSize returns the size in bytes of the model file of a system or -1 if it is unknown
+	 * @return the number of models that could not be loaded
+	 */
+	int preload(List<Integer> systemIndices, IModelLoader loader, IntToLongFunction fileSize)
+			throws InterruptedException {
+		final List<Callable<Void>> tasks = new ArrayList<>(systemIndices.size());
+		for (Integer systemIndex : systemIndices) {
+			tasks.add(() -> {
+				final long fileSizeValue = fileSize.applyAsLong(systemIndex);
+				final long loadSize = (fileSizeValue >= 0) ? fileSizeValue * LOAD_MEMORY_FACTOR : 0;
+				if (reserveLoad(loadSize)) {
+					load(systemIndex, loader, loadSize);
+				}
+				return null;
+			});
+		}
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invokeAll(tasks);
+		} finally {
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		int failureCount = 0;
+		for (PreloadedModel model : models.values()) {
+			if (model.error != null) {
+				failureCount++;
+			}
+		}
+		return failureCount;
+	}
+
+	private void load(int systemIndex, IModelLoader loader, long loadSize) {
+		final PreloadedModel model = new PreloadedModel();
+		final Timer timer = PhaseRecorder.getInstance().start(Phase.LOAD_MODEL);
+		try {
+			final CNF cnf = loader.load(systemIndex);
+			model.loadTime = timer.stop();
+			if (cnf == null) {
+				model.error = new Exception("Model could not be loaded");
+			} else {
+				model.modelSize = cnf.getVariables().size() + cnf.getClauses().size();
+				final long size = getEstimatedSize(cnf);
+				if (reserve(size, loadSize)) {
+					model.cnf = cnf;
+					model.size = size;
+				}
+			}
+		} catch (Exception e) {
+			model.loadTime = timer.stop();
+			model.error = e;
+		} finally {
+			releaseLoad(loadSize);
+		}
+		models.put(systemIndex, model);
+	}
+
+	/**
+	 * Reserves the memory that is needed while loading a model. Waits until the reservation fits into the budget
+	 * next to the models that are currently loaded.
+	 *
+	 * @return {@code false} if the reservation does not fit into the budget even if no other model is loading
+	 */
+	private synchronized boolean reserveLoad(long loadSize) throws InterruptedException {
+		while ((loadingMemory > 0) && ((usedMemory + loadingMemory + loadSize) > memoryBudget)) {
+			wait();
+		}
+		if ((usedMemory + loadSize) > memoryBudget) {
+			return false;
+		}
+		loadingMemory += loadSize;
+		return true;
+	}
+
+	private synchronized void releaseLoad(long loadSize) {
+		loadingMemory -= loadSize;
+		notifyAll();
+	}
+
+	/**
+	 * Reserves the memory of a loaded CNF. The memory that is still reserved for loading the CNF counts as free.
+	 */
+	private synchronized boolean reserve(long size, long loadSize) {
+		if ((usedMemory + (loadingMemory - loadSize) + size) > memoryBudget) {
+			return false;
+		}
+		usedMemory += size;
+		return true;
+	}
+
+	private synchronized void release(long size) {
+		usedMemory -= size;
+		notifyAll();
+	}
+
+	/**
+	 * Returns a rough estimate of the heap memory used by the given CNF.
+	 */
+	private static long getEstimatedSize(CNF cnf) {
+		long size = 64L * cnf.getVariables().size();
+		for (LiteralSet clause : cnf.getClauses()) {
+			size += 56 + (4 * clause.getLiterals().length);
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the preloaded CNF of the given system and removes it from memory.
+	 *
+	 * @return the CNF or {@code null} if the CNF was not kept in memory
+	 */
+	CNF take(int systemIndex) {
+		final PreloadedModel model = models.get(systemIndex);
+		if (model == null) {
+			return null;
+		}
+		synchronized (model) {
+			final CNF cnf = model.cnf;
+			if (cnf != null) {
+				model.cnf = null;
+				release(model.size);
+			}
+			return cnf;
+		}
+	}
+
+	/**
+	 * @return the time in nanoseconds that was needed to load the model of the given system or -1 if it was not
+	 *         preloaded
+	 */
+	long getLoadTime(int systemIndex) {
+		final PreloadedModel model = models.get(systemIndex);
+		return model != null ? model.loadTime : -1;
+	}
+
+	/**
+	 * @return the number of variables and clauses of the model of the given system or -1 if it is unknown
+	 */
+	long getModelSize(int systemIndex) {
+		final PreloadedModel model = models.get(systemIndex);
+		return model != null ? model.modelSize : -1;
+	}
+
+	/**
+	 * @return the exception that occurred during loading the model of the given system or {@code null}
+	 */
+	Exception getError(int systemIndex) {
+		final PreloadedModel model = models.get(systemIndex);
+		return model != null ? model.error : null;
+	}
+
+	void logErrors(List<String> systemNames) {
+		for (int systemIndex = 0; systemIndex < systemNames.size(); systemIndex++) {
+			final Exception error = getError(systemIndex);
+			if (error != null) {
+				Logger.getInstance().logError("Could not load " + systemNames.get(systemIndex) + ": " + error);
+			}
+		}
+	}
+
+}
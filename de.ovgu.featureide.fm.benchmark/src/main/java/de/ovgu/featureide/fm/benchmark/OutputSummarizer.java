@@ -0,0 +1,407 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.ovgu.featureide.fm.benchmark.output.ColumnarReader;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarResultSink;
+import de.ovgu.featureide.fm.benchmark.util.QuantileSketch;
+
+/**
+ * Summarizes the data.csv files of one or more output directories. For each combination of model and algorithm, the
+ * number of runs, the rate of timeouts and errors, and the mean, median, 90th and 99th percentile of the time of all
+ * successful runs are computed. Models and algorithms are identified by the names in models.csv and algorithms.csv,
+ * such that runs from different directories are combined.
+ * <p>
+ * If a data.csv file contains no rows, but there is a data.col file next to it (i.e., the benchmark only wrote
+ * columnar output), the columnar file is read instead.
+ * <p>
+ * The files are read in a single pass. Each file is split into chunks that are parsed in parallel. Quantiles are
+ * computed with {@link QuantileSketch sketches} with a relative accuracy of 1%, such that the memory does not depend
+ * on the number of rows.
+ *
+ * @author Sebastian Krieter
+ */
+public class OutputSummarizer {
+
+	private static final double RELATIVE_ACCURACY = 0.01;
+	private static final long CHUNK_SIZE = 64L << 20;
+	private static final int MAX_LINE_LENGTH = 1 << 16;
+
+	private static final int MODEL_ID = 1;
+	private static final int ALGORITHM_ID = 2;
+	private static final int IN_TIME = 3;
+	private static final int NO_ERROR = 4;
+	private static final int TIME = 5;
+
+	private static class Aggregate {
+		private long count;
+		private long timeouts;
+		private long errors;
+		private final QuantileSketch times = new QuantileSketch(RELATIVE_ACCURACY);
+
+		private void merge(Aggregate other) {
+			count += other.count;
+			timeouts += other.timeouts;
+			errors += other.errors;
+			times.merge(other.times);
+		}
+	}
+
+	/**
+	 * Part of a data.csv file that is parsed by one thread.
+	 */
+	private static class Chunk {
+		private final Path file;
+		private final long start;
+		private final long end;
+		private final long fileSize;
+		private final byte separator;
+		private final int[] columnRoles;
+		private final Map<Long, Integer> pairIndexes;
+
+		private Chunk(Path file, long start, long end, long fileSize, byte separator, int[] columnRoles,
+				Map<Long, Integer> pairIndexes) {
+			this.file = file;
+			this.start = start;
+			this.end = end;
+			this.fileSize = fileSize;
+			this.separator = separator;
+			this.columnRoles = columnRoles;
+			this.pairIndexes = pairIndexes;
+		}
+	}
+
+	private final Map<String, Integer> keyIndexes = new HashMap<>();
+	private final List<String[]> keys = new ArrayList<>();
+	private final List<Chunk> chunks = new ArrayList<>();
+	private final Map<Path, Map<Long, Integer>> columnarFiles = new LinkedHashMap<>();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: OutputSummarizer <summary file> <directory>...");
+			return;
+		}
+		final OutputSummarizer summarizer = new OutputSummarizer();
+		for (int i = 1; i < args.length; i++) {
+			summarizer.addDirectory(Paths.get(args[i]));
+		}
+		final long startTime = System.nanoTime();
+		final Aggregate[] aggregates = summarizer.summarize();
+		summarizer.write(Paths.get(args[0]), aggregates);
+		System.out.println("Summarized " + (summarizer.chunks.size() + summarizer.columnarFiles.size()) + " chunks in "
+				+ ((System.nanoTime() - startTime) / 1_000_000L) + "ms");
+	}
+
+	/**
+	 * Adds all data.csv files within the given directory.
+	 */
+	private void addDirectory(Path directory) throws IOException {
+		final List<Path> dataFiles;
+		try (Stream<Path> files = Files.walk(directory)) {
+			dataFiles = files.filter(file -> file.getFileName().toString().equals("data.csv"))
+					.collect(Collectors.toList());
+		}
+		for (Path dataFile : dataFiles) {
+			try {
+				addDataFile(dataFile);
+			} catch (IOException e) {
+				System.err.println("Could not read " + dataFile + ": " + e.getMessage());
+			}
+		}
+	}
+
+	private void addDataFile(Path dataFile) throws IOException {
+		final Path csvPath = dataFile.getParent();
+		final Map<Integer, String> modelNames = new HashMap<>();
+		ResumeIndex.readRows(csvPath.resolve("models.csv"), Arrays.asList("ModelID", "Name"), "Name",
+				values -> modelNames.put(Integer.parseInt(values[0]), values[1]));
+		final Map<Long, Integer> pairIndexes = new HashMap<>();
+		ResumeIndex.readRows(csvPath.resolve("algorithms.csv"),
+				Arrays.asList("ModelID", "AlgorithmID", "Name", "Settings"), "Settings", values -> {
+					final int modelID = Integer.parseInt(values[0]);
+					final String[] key = { modelNames.getOrDefault(modelID, values[0]), values[2], values[3] };
+					final Integer keyIndex = keyIndexes.computeIfAbsent(String.join("\0", key), k -> {
+						keys.add(key);
+						return keys.size() - 1;
+					});
+					pairIndexes.put(getPairKey(modelID, Integer.parseInt(values[1])), keyIndex);
+				});
+
+		final String header;
+		try (BufferedReader reader = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+			header = reader.readLine();
+		}
+		if (header == null) {
+			return;
+		}
+		final String separator = header.contains(";") ? ";" : ",";
+		final List<String> columnNames = Arrays.asList(header.split(separator, -1));
+		final int[] columnRoles = new int[columnNames.size()];
+		setColumnRole(columnNames, columnRoles, "ModelID", MODEL_ID);
+		setColumnRole(columnNames, columnRoles, "AlgorithmID", ALGORITHM_ID);
+		setColumnRole(columnNames, columnRoles, "InTime", IN_TIME);
+		setColumnRole(columnNames, columnRoles, "NoError", NO_ERROR);
+		setColumnRole(columnNames, columnRoles, "Time", TIME);
+
+		final long fileSize = Files.size(dataFile);
+		final long dataStart = header.getBytes(StandardCharsets.UTF_8).length + 1;
+		final Path columnarFile = ColumnarResultSink.getColumnarFile(dataFile);
+		if ((fileSize <= dataStart) && Files.isReadable(columnarFile)) {
+			columnarFiles.put(columnarFile, pairIndexes);
+			return;
+		}
+		for (long start = dataStart; start < fileSize; start += CHUNK_SIZE) {
+			chunks.add(new Chunk(dataFile, start, Math.min(start + CHUNK_SIZE, fileSize), fileSize,
+					(byte) separator.charAt(0), columnRoles, pairIndexes));
+		}
+	}
+
+	private static void setColumnRole(List<String> columnNames, int[] columnRoles, String columnName, int role)
+			throws IOException {
+		final int index = columnNames.indexOf(columnName);
+		if (index < 0) {
+			throw new IOException("Missing column " + columnName);
+		}
+		columnRoles[index] = role;
+	}
+
+	private static long getPairKey(int modelID, int algorithmID) {
+		return ((long) modelID << 32) | (algorithmID & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Parses all chunks in parallel and then all columnar files.
+	 *
+	 * @return the aggregate of each model and algorithm, indexed like {@link #keys}
+	 */
+	private Aggregate[] summarize() {
+		final Aggregate[] aggregates = summarizeChunks();
+		for (Entry<Path, Map<Long, Integer>> entry : columnarFiles.entrySet()) {
+			try {
+				parse(entry.getKey(), entry.getValue(), aggregates);
+			} catch (IOException | IllegalArgumentException e) {
+				System.err.println("Could not read " + entry.getKey() + ": " + e.getMessage());
+			}
+		}
+		return aggregates;
+	}
+
+	private Aggregate[] summarizeChunks() {
+		final int keyCount = keys.size();
+		return chunks.parallelStream().collect(() -> new Aggregate[keyCount], (aggregates, chunk) -> {
+			try {
+				parse(chunk, aggregates);
+			} catch (IOException e) {
+				System.err.println("Could not read " + chunk.file + ": " + e.getMessage());
+			}
+		}, (aggregates, otherAggregates) -> {
+			for (int i = 0; i < keyCount; i++) {
+				if (otherAggregates[i] != null) {
+					if (aggregates[i] == null) {
+						aggregates[i] = otherAggregates[i];
+					} else {
+						aggregates[i].merge(otherAggregates[i]);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Parses all rows of a columnar file.
+	 */
+	private static void parse(Path columnarFile, Map<Long, Integer> pairIndexes, Aggregate[] aggregates)
+			throws IOException {
+		try (ColumnarReader reader = new ColumnarReader(columnarFile)) {
+			reader.readRows(Arrays.asList("ModelID", "AlgorithmID", "InTime", "NoError", "Time"), row -> {
+				if ((row[0] instanceof Long) && (row[1] instanceof Long) && (row[4] instanceof Long)) {
+					add(aggregates, pairIndexes, (int) (long) (Long) row[0], (int) (long) (Long) row[1],
+							Boolean.TRUE.equals(row[2]), Boolean.TRUE.equals(row[3]), (Long) row[4]);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Parses all lines that start within the given chunk. The last line may extend beyond the end of the chunk.
+	 */
+	private static void parse(Chunk chunk, Aggregate[] aggregates) throws IOException {
+		final long mapStart = chunk.start - 1;
+		final long mapEnd = Math.min(chunk.fileSize, chunk.end + MAX_LINE_LENGTH);
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(chunk.file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+		}
+		final int limit = buffer.limit();
+		final int chunkLength = (int) (chunk.end - mapStart);
+		final int[] columnRoles = chunk.columnRoles;
+		final byte separator = chunk.separator;
+
+		// The line that starts before the chunk belongs to the previous chunk
+		int position = 0;
+		while ((position < limit) && (buffer.get(position) != '\n')) {
+			position++;
+		}
+		position++;
+
+		while (position < chunkLength) {
+			int column = 0;
+			int modelID = 0, algorithmID = 0;
+			long time = 0;
+			boolean inTime = false, noError = false, valid = true;
+			long value = 0;
+			boolean negative = false, digits = false;
+			byte firstByte = 0;
+			boolean fieldStart = true;
+			int b = 0;
+			for (; position < limit; position++) {
+				b = buffer.get(position);
+				if ((b == separator) || (b == '\n') || (b == '\r')) {
+					if (column < columnRoles.length) {
+						switch (columnRoles[column]) {
+						case MODEL_ID:
+							modelID = (int) value;
+							valid &= digits;
+							break;
+						case ALGORITHM_ID:
+							algorithmID = (int) value;
+							valid &= digits;
+							break;
+						case TIME:
+							time = negative ? -value : value;
+							valid &= digits;
+							break;
+						case IN_TIME:
+							inTime = firstByte == 't';
+							break;
+						case NO_ERROR:
+							noError = firstByte == 't';
+							break;
+						default:
+							break;
+						}
+					}
+					column++;
+					value = 0;
+					negative = false;
+					digits = false;
+					fieldStart = true;
+					if (b != separator) {
+						break;
+					}
+				} else {
+					if (fieldStart) {
+						firstByte = (byte) b;
+						fieldStart = false;
+					}
+					if ((b >= '0') && (b <= '9')) {
+						value = (value * 10) + (b - '0');
+						digits = true;
+					} else if (b == '-') {
+						negative = true;
+					}
+				}
+			}
+			// Skip the rest of the line (e.g., \n after \r)
+			while ((position < limit) && (buffer.get(position) != '\n')) {
+				position++;
+			}
+			final boolean complete = position < limit;
+			position++;
+			if (!complete || !valid || (column < columnRoles.length)) {
+				continue;
+			}
+			add(aggregates, chunk.pairIndexes, modelID, algorithmID, inTime, noError, time);
+		}
+	}
+
+	private static void add(Aggregate[] aggregates, Map<Long, Integer> pairIndexes, int modelID, int algorithmID,
+			boolean inTime, boolean noError, long time) {
+		final Integer keyIndex = pairIndexes.get(getPairKey(modelID, algorithmID));
+		if (keyIndex == null) {
+			return;
+		}
+		Aggregate aggregate = aggregates[keyIndex];
+		if (aggregate == null) {
+			aggregate = new Aggregate();
+			aggregates[keyIndex] = aggregate;
+		}
+		aggregate.count++;
+		if (!inTime) {
+			aggregate.timeouts++;
+		} else if (!noError) {
+			aggregate.errors++;
+		} else if (time >= 0) {
+			aggregate.times.add(time);
+		}
+	}
+
+	/**
+	 * Writes one line per model and algorithm with the columns Model, Algorithm, Settings, Count, TimeoutRate,
+	 * ErrorRate, Mean, Median, P90, and P99.
+	 */
+	private void write(Path summaryFile, Aggregate[] aggregates) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(summaryFile, StandardCharsets.UTF_8)) {
+			writer.write("Model;Algorithm;Settings;Count;TimeoutRate;ErrorRate;Mean;Median;P90;P99");
+			writer.newLine();
+			for (int i = 0; i < aggregates.length; i++) {
+				final Aggregate aggregate = aggregates[i];
+				if (aggregate == null) {
+					continue;
+				}
+				final String[] key = keys.get(i);
+				final QuantileSketch times = aggregate.times;
+				writer.write(key[0] + ";" + key[1] + ";" + key[2] + ";" + aggregate.count + ";"
+						+ ((double) aggregate.timeouts / aggregate.count) + ";"
+						+ ((double) aggregate.errors / aggregate.count) + ";" + format(times.getMean()) + ";"
+						+ format(times.getQuantile(0.5)) + ";" + format(times.getQuantile(0.9)) + ";"
+						+ format(times.getQuantile(0.99)));
+				writer.newLine();
+			}
+		}
+	}
+
+	private static String format(double value) {
+		return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.1f", value);
+	}
+
+}
@@ -0,0 +1,390 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.sk.utils.Logger;
+
+import de.ovgu.featureide.fm.benchmark.output.ColumnarReader;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarResultSink;
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.benchmark.process.Result;
+
+/**
+ * Index of the runs that are already recorded in the CSV files (or, with columnar-only output, the columnar files) of
+ * an output directory. Used to resume an interrupted benchmark.
+ *
+ * @author Sebastian Krieter
+ */
+public class ResumeIndex {
+
+	private final Set<Integer> models = new HashSet<>();
+	private final Map<Integer, long[]> modelSizes = new HashMap<>();
+	private final Map<Long, String> algorithms = new HashMap<>();
+	private final Map<Long, Map<Long, Long>> completedRuns = new HashMap<>();
+	private final Map<Long, Set<Long>> failedRuns = new HashMap<>();
+	private final Map<Long, Set<Integer>> stoppedRuns = new HashMap<>();
+	private final Map<Long, Set<Long>> prunedRuns = new HashMap<>();
+	private final Map<Long, Integer> timeouts = new HashMap<>();
+
+	private int runCount = 0;
+
+	public static ResumeIndex read(Path csvPath) throws IOException {
+		final ResumeIndex index = new ResumeIndex();
+		readCSV(csvPath.resolve("models.csv"), Arrays.asList("ModelID"), "Name",
+				values -> index.models.add(Integer.parseInt(values[0])));
+		try {
+			readRows(csvPath.resolve("models.csv"), Arrays.asList("ModelID", "Variables", "Clauses"), "Name",
+					values -> index.modelSizes.put(Integer.parseInt(values[0]),
+							new long[] { Long.parseLong(values[1]), Long.parseLong(values[2]) }));
+		} catch (IOException e) {
+			// Older benchmarks do not record the model size
+		}
+		readCSV(csvPath.resolve("algorithms.csv"), Arrays.asList("ModelID", "AlgorithmID", "Name", "Settings"),
+				"Settings", values -> index.algorithms.put(getKey(Integer.parseInt(values[0]), Integer.parseInt(values[1])),
+						values[2] + "_" + values[3]));
+		readCSV(csvPath.resolve("data.csv"),
+				Arrays.asList("ModelID", "AlgorithmID", "SystemIteration", "AlgorithmIteration", "Time", "InTime",
+						"NoError"),
+				null, values -> {
+					final long pairKey = getKey(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
+					final long iterationKey = getKey(Integer.parseInt(values[2]), Integer.parseInt(values[3]));
+					final long time = Long.parseLong(values[4]);
+					if (index.completedRuns.computeIfAbsent(pairKey, k -> new HashMap<>()).put(iterationKey,
+							time) == null) {
+						index.runCount++;
+						if (!Boolean.parseBoolean(values[5]) && (time != Result.INVALID_TIME)) {
+							index.timeouts.merge(pairKey, 1, Integer::sum);
+						}
+						if (!Boolean.parseBoolean(values[5]) || !Boolean.parseBoolean(values[6])) {
+							index.failedRuns.computeIfAbsent(pairKey, k -> new HashSet<>()).add(iterationKey);
+						}
+					}
+				});
+		readCSV(csvPath.resolve("pruned.csv"),
+				Arrays.asList("ModelID", "AlgorithmID", "SystemIteration", "AlgorithmIteration"), null,
+				values -> index.prunedRuns
+						.computeIfAbsent(getKey(Integer.parseInt(values[0]), Integer.parseInt(values[1])),
+								k -> new HashSet<>())
+						.add(getKey(Integer.parseInt(values[2]), Integer.parseInt(values[3]))));
+		readCSV(csvPath.resolve("stops.csv"), Arrays.asList("ModelID", "AlgorithmID", "SystemIteration"), null,
+				values -> index.stoppedRuns
+						.computeIfAbsent(getKey(Integer.parseInt(values[0]), Integer.parseInt(values[1])),
+								k -> new HashSet<>())
+						.add(Integer.parseInt(values[2])));
+		return index;
+	}
+
+	/**
+	 * Reads the given columns of all rows of a CSV file. Rows that cannot be parsed are ignored. An incomplete last
+	 * line (e.g., after a crash) is removed from the file, such that new rows can be appended.
+	 */
+	private static void readCSV(Path file, List<String> columns, String textColumn, Consumer<String[]> rowConsumer)
+			throws IOException {
+		if (!Files.isReadable(file)) {
+			return;
+		}
+		removeIncompleteLine(file);
+		readRows(file, columns, textColumn, rowConsumer);
+	}
+
+	/**
+	 * Reads the given columns of all rows of a CSV file without modifying it. Rows that cannot be parsed are ignored.
+	 */
+	static void readRows(Path file, List<String> columns, Consumer<String[]> rowConsumer) throws IOException {
+		readRows(file, columns, null, rowConsumer);
+	}
+
+	/**
+	 * Reads the given columns of all rows of a CSV file without modifying it. Rows that cannot be parsed are ignored.
+	 * Values may be quoted. If a row has more values than the header, the surplus values are assumed to be unquoted
+	 * separators within the given text column.
+	 * <p>
+	 * If the CSV file contains no rows, but there is a columnar file next to it (i.e., the benchmark only wrote
+	 * columnar output), the rows are read from the columnar file instead.
+	 *
+	 * @param textColumn the column that may contain separators or {@code null}
+	 */
+	static void readRows(Path file, List<String> columns, String textColumn, Consumer<String[]> rowConsumer)
+			throws IOException {
+		if (!Files.isReadable(file)) {
+			return;
+		}
+		if (!readCSVRows(file, columns, textColumn, rowConsumer)) {
+			final Path columnarFile = ColumnarResultSink.getColumnarFile(file);
+			if (Files.isReadable(columnarFile)) {
+				readColumnarRows(columnarFile, columns, rowConsumer);
+			}
+		}
+	}
+
+	private static void readColumnarRows(Path file, List<String> columns, Consumer<String[]> rowConsumer)
+			throws IOException {
+		try (ColumnarReader reader = new ColumnarReader(file)) {
+			for (String column : columns) {
+				if (!reader.getColumnNames().contains(column)) {
+					throw new IOException("Missing column " + column + " in " + file);
+				}
+			}
+			final String[] values = new String[columns.size()];
+			reader.readRows(columns, row -> {
+				for (int i = 0; i < values.length; i++) {
+					values[i] = (row[i] != null) ? String.valueOf(row[i]) : null;
+				}
+				try {
+					rowConsumer.accept(values);
+				} catch (NumberFormatException e) {
+					Logger.getInstance().logInfo("Skipping invalid row in " + file, 1);
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return whether the file contains at least one row
+	 */
+	private static boolean readCSVRows(Path file, List<String> columns, String textColumn,
+			Consumer<String[]> rowConsumer) throws IOException {
+		boolean hasRows = false;
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			final String header = reader.readLine();
+			if (header == null) {
+				return false;
+			}
+			final char separator = header.indexOf(';') >= 0 ? ';' : ',';
+			final List<String> headerValues = split(header, separator);
+			final int textColumnIndex = (textColumn != null) ? headerValues.indexOf(textColumn) : -1;
+			final int[] columnIndexes = new int[columns.size()];
+			for (int i = 0; i < columnIndexes.length; i++) {
+				columnIndexes[i] = headerValues.indexOf(columns.get(i));
+				if (columnIndexes[i] < 0) {
+					throw new IOException("Missing column " + columns.get(i) + " in " + file);
+				}
+			}
+			final String[] values = new String[columnIndexes.length];
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				hasRows = true;
+				List<String> lineValues = split(line, separator);
+				if ((lineValues.size() > headerValues.size()) && (textColumnIndex >= 0)) {
+					lineValues = joinSurplus(lineValues, headerValues.size(), textColumnIndex, separator);
+				}
+				if (lineValues.size() >= headerValues.size()) {
+					for (int i = 0; i < columnIndexes.length; i++) {
+						values[i] = lineValues.get(columnIndexes[i]);
+					}
+					try {
+						rowConsumer.accept(values);
+					} catch (NumberFormatException e) {
+						Logger.getInstance().logInfo("Skipping invalid line in " + file + ": " + line, 1);
+					}
+				}
+			}
+		}
+		return hasRows;
+	}
+
+	/**
+	 * Splits a CSV line at the given separator. Separators within double-quoted values are ignored.
+	 */
+	private static List<String> split(String line, char separator) {
+		final List<String> values = new ArrayList<>();
+		final StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && (i + 1 < line.length()) && (line.charAt(i + 1) == '"')) {
+					value.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if ((c == separator) && !quoted) {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values;
+	}
+
+	private static List<String> joinSurplus(List<String> lineValues, int size, int textColumnIndex, char separator) {
+		final int textEnd = textColumnIndex + (lineValues.size() - size) + 1;
+		final List<String> joinedValues = new ArrayList<>(size);
+		joinedValues.addAll(lineValues.subList(0, textColumnIndex));
+		joinedValues.add(String.join(String.valueOf(separator), lineValues.subList(textColumnIndex, textEnd)));
+		joinedValues.addAll(lineValues.subList(textEnd, lineValues.size()));
+		return joinedValues;
+	}
+
+	private static void removeIncompleteLine(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(8192);
+			long position = channel.size();
+			search: while (position > 0) {
+				final int length = (int) Math.min(buffer.capacity(), position);
+				buffer.clear();
+				buffer.limit(length);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, position - length + buffer.position()) < 0) {
+						throw new IOException("Unexpected end of " + file);
+					}
+				}
+				for (int i = length - 1; i >= 0; i--) {
+					if (buffer.get(i) == '\n') {
+						position -= length - 1 - i;
+						break search;
+					}
+				}
+				position -= length;
+			}
+			if (position < channel.size()) {
+				Logger.getInstance().logInfo("Removing incomplete line from " + file, 1);
+				channel.truncate(position);
+			}
+		}
+	}
+
+	private static long getKey(int first, int second) {
+		return ((long) first << 32) | (second & 0xFFFFFFFFL);
+	}
+
+	public int getRunCount() {
+		return runCount;
+	}
+
+	public boolean containsModel(int modelID) {
+		return models.contains(modelID);
+	}
+
+	public boolean containsAlgorithm(int modelID, int algorithmID) {
+		return algorithms.containsKey(getKey(modelID, algorithmID));
+	}
+
+	/**
+	 * Checks whether the given algorithm was recorded with the same name and settings for the given model. Otherwise,
+	 * recorded runs cannot be attributed to the algorithm.
+	 */
+	public boolean matchesAlgorithm(int modelID, int algorithmID, Algorithm<?> algorithm) {
+		final String recordedAlgorithm = algorithms.get(getKey(modelID, algorithmID));
+		return (recordedAlgorithm == null)
+				|| recordedAlgorithm.equals(algorithm.getName() + "_" + algorithm.getParameterSettings());
+	}
+
+	public boolean isCompleted(int modelID, int algorithmID, int systemIteration, int algorithmIteration) {
+		final long pairKey = getKey(modelID, algorithmID);
+		final long iterationKey = getKey(systemIteration, algorithmIteration);
+		final Map<Long, Long> pairRuns = completedRuns.get(pairKey);
+		final Set<Long> pairPrunedRuns = prunedRuns.get(pairKey);
+		return ((pairRuns != null) && pairRuns.containsKey(iterationKey))
+				|| ((pairPrunedRuns != null) && pairPrunedRuns.contains(iterationKey));
+	}
+
+	/**
+	 * @return the number of recorded runs of the given algorithm on the given model that did not terminate in time
+	 */
+	public int getTimeoutCount(int modelID, int algorithmID) {
+		return timeouts.getOrDefault(getKey(modelID, algorithmID), 0);
+	}
+
+	/**
+	 * @return for each algorithm (by its full name), the ID, number of variables, and number of clauses of each model
+	 *         on which the algorithm timed out. Models without a recorded size are omitted.
+	 */
+	public Map<String, List<long[]>> getTimeoutModelSizes() {
+		final Map<String, List<long[]>> timeoutModelSizes = new HashMap<>();
+		for (Long pairKey : timeouts.keySet()) {
+			final int modelID = (int) (pairKey >>> 32);
+			final String algorithm = algorithms.get(pairKey);
+			final long[] size = modelSizes.get(modelID);
+			if ((algorithm != null) && (size != null)) {
+				timeoutModelSizes.computeIfAbsent(algorithm, k -> new ArrayList<>())
+						.add(new long[] { modelID, size[0], size[1] });
+			}
+		}
+		return timeoutModelSizes;
+	}
+
+	/**
+	 * @return the number of consecutive recorded iterations of the given algorithm in the given system iteration,
+	 *         starting with the first algorithm iteration
+	 */
+	public int getIterationCount(int modelID, int algorithmID, int systemIteration) {
+		final Map<Long, Long> pairRuns = completedRuns.get(getKey(modelID, algorithmID));
+		int count = 0;
+		if (pairRuns != null) {
+			while (pairRuns.containsKey(getKey(systemIteration, count + 1))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the recorded times of the consecutive iterations of the given algorithm in the given system iteration
+	 *         that terminated in time and without errors
+	 */
+	public List<Long> getTimes(int modelID, int algorithmID, int systemIteration) {
+		final List<Long> times = new ArrayList<>();
+		final long pairKey = getKey(modelID, algorithmID);
+		final Map<Long, Long> pairRuns = completedRuns.get(pairKey);
+		final Set<Long> pairFailedRuns = failedRuns.getOrDefault(pairKey, Collections.emptySet());
+		final int count = getIterationCount(modelID, algorithmID, systemIteration);
+		for (int algorithmIteration = 1; algorithmIteration <= count; algorithmIteration++) {
+			final long iterationKey = getKey(systemIteration, algorithmIteration);
+			if (!pairFailedRuns.contains(iterationKey)) {
+				times.add(pairRuns.get(iterationKey));
+			}
+		}
+		return times;
+	}
+
+	/**
+	 * Checks whether an adaptive repetition of the given algorithm in the given system iteration already stopped.
+	 */
+	public boolean isStopped(int modelID, int algorithmID, int systemIteration) {
+		final Set<Integer> pairStops = stoppedRuns.get(getKey(modelID, algorithmID));
+		return (pairStops != null) && pairStops.contains(systemIteration);
+	}
+
+}
@@ -0,0 +1,115 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.nio.file.Path;
+
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.benchmark.process.Result;
+import de.ovgu.featureide.fm.benchmark.util.InputFileCache.IInputWriter;
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+
+/**
+ * Holds all data of a single algorithm run, i.e., one tuple of system, system iteration, algorithm, and algorithm
+ * iteration.
+ *
+ * @author Sebastian Krieter
+ */
+public class RunContext<R, A extends Algorithm<R>, K extends Result<R>> {
+
+	private final SystemContext<A> system;
+	private final int systemIteration;
+	private final CNF randomizedModelCNF;
+	private final int algorithmIndex;
+	private final A algorithm;
+	private final int algorithmIteration;
+	private final Slot<R, A, K> slot;
+
+	private K result;
+
+	public RunContext(SystemContext<A> system, int systemIteration, CNF randomizedModelCNF, int algorithmIndex,
+			A algorithm, int algorithmIteration, Slot<R, A, K> slot) {
+		this.system = system;
+		this.systemIteration = systemIteration;
+		this.randomizedModelCNF = randomizedModelCNF;
+		this.algorithmIndex = algorithmIndex;
+		this.algorithm = algorithm;
+		this.algorithmIteration = algorithmIteration;
+		this.slot = slot;
+	}
+
+	public SystemContext<A> getSystem() {
+		return system;
+	}
+
+	public int getSystemIteration() {
+		return systemIteration;
+	}
+
+	public CNF getModelCNF() {
+		return system.getModelCNF();
+	}
+
+	public CNF getRandomizedModelCNF() {
+		return randomizedModelCNF;
+	}
+
+	/**
+	 * Returns a file that contains the randomized model in the given format. The file is shared by all runs of the
+	 * same system iteration and must not be modified.
+	 *
+	 * @param format the name of the format, which is also used as file extension
+	 * @param writer writes the model in the format
+	 * @see SystemContext#getInputFile(int, CNF, String, IInputWriter)
+	 */
+	public Path getInputFile(String format, IInputWriter writer) throws Exception {
+		return system.getInputFile(systemIteration, randomizedModelCNF, format, writer);
+	}
+
+	public int getAlgorithmIndex() {
+		return algorithmIndex;
+	}
+
+	public A getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getAlgorithmIteration() {
+		return algorithmIteration;
+	}
+
+	public Slot<R, A, K> getSlot() {
+		return slot;
+	}
+
+	public Path getTempPath() {
+		return slot.getTempPath();
+	}
+
+	public K getResult() {
+		return result;
+	}
+
+	public void setResult(K result) {
+		this.result = result;
+	}
+
+}
@@ -0,0 +1,216 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.sk.utils.Logger;
+
+/**
+ * Estimates the time of runs from the data.csv files of previous benchmarks in the output directory. The estimate
+ * of a run is, in this order of preference, the mean time of the same algorithm on the same model, the mean time
+ * per model size (variables + clauses) of the algorithm multiplied with the size of the model, the mean time of the
+ * algorithm, or the mean time of all runs. Without any recorded runs, the model size is used as a relative cost.
+ * <p>
+ * The model also predicts the makespan of the benchmark by assigning each dispatched run to the slot with the least
+ * predicted load.
+ *
+ * @author Sebastian Krieter
+ */
+class RunCostModel {
+
+	private static class Mean {
+		private double sum;
+		private long count;
+
+		private void add(double value) {
+			sum += value;
+			count++;
+		}
+
+		private double get() {
+			return sum / count;
+		}
+	}
+
+	private final Map<String, Mean> pairTimes = new HashMap<>();
+	private final Map<String, Mean> modelTimes = new HashMap<>();
+	private final Map<String, Mean> algorithmTimes = new HashMap<>();
+	private final Map<String, Mean> algorithmTimesPerSize = new HashMap<>();
+	private final Map<String, Long> modelSizes = new HashMap<>();
+	private final Mean totalTime = new Mean();
+
+	private final PriorityQueue<Double> slotLoads = new PriorityQueue<>();
+
+	/**
+	 * @param outputRootPath the directory that contains the output directories of all benchmarks
+	 * @param slotCount the number of slots that execute runs concurrently
+	 */
+	RunCostModel(Path outputRootPath, int slotCount) {
+		for (int i = 0; i < slotCount; i++) {
+			slotLoads.add(0.0);
+		}
+		if (Files.isDirectory(outputRootPath)) {
+			try (DirectoryStream<Path> outputDirectories = Files.newDirectoryStream(outputRootPath,
+					Files::isDirectory)) {
+				for (Path outputDirectory : outputDirectories) {
+					final Path csvPath = outputDirectory.resolve("data");
+					if (Files.isReadable(csvPath.resolve("data.csv"))) {
+						try {
+							read(csvPath);
+						} catch (IOException e) {
+							Logger.getInstance().logInfo("Ignoring run times in " + csvPath + ": " + e.getMessage(), 1);
+						}
+					}
+				}
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+		}
+	}
+
+	private void read(Path csvPath) throws IOException {
+		final Map<Integer, String> modelNames = new HashMap<>();
+		final Map<Integer, Long> sizes = new HashMap<>();
+		final Map<Long, String> algorithmNames = new HashMap<>();
+		ResumeIndex.readRows(csvPath.resolve("models.csv"), Arrays.asList("ModelID", "Name"), "Name",
+				values -> modelNames.put(Integer.parseInt(values[0]), values[1]));
+		try {
+			ResumeIndex.readRows(csvPath.resolve("models.csv"), Arrays.asList("ModelID", "Variables", "Clauses"),
+					"Name", values -> sizes.put(Integer.parseInt(values[0]),
+							Long.parseLong(values[1]) + Long.parseLong(values[2])));
+		} catch (IOException e) {
+			// Older benchmarks do not record the model size
+		}
+		ResumeIndex.readRows(csvPath.resolve("algorithms.csv"),
+				Arrays.asList("ModelID", "AlgorithmID", "Name", "Settings"), "Settings",
+				values -> algorithmNames.put(getKey(Integer.parseInt(values[0]), Integer.parseInt(values[1])),
+						values[2] + "_" + values[3]));
+		for (Map.Entry<Integer, Long> entry : sizes.entrySet()) {
+			final String modelName = modelNames.get(entry.getKey());
+			if (modelName != null) {
+				modelSizes.put(modelName, entry.getValue());
+			}
+		}
+		ResumeIndex.readRows(csvPath.resolve("data.csv"), Arrays.asList("ModelID", "AlgorithmID", "Time"), values -> {
+			final int modelID = Integer.parseInt(values[0]);
+			final String modelName = modelNames.get(modelID);
+			final String algorithmName = algorithmNames.get(getKey(modelID, Integer.parseInt(values[1])));
+			final long time = Long.parseLong(values[2]);
+			if ((modelName == null) || (algorithmName == null) || (time < 0)) {
+				return;
+			}
+			pairTimes.computeIfAbsent(getKey(modelName, algorithmName), k -> new Mean()).add(time);
+			modelTimes.computeIfAbsent(modelName, k -> new Mean()).add(time);
+			algorithmTimes.computeIfAbsent(algorithmName, k -> new Mean()).add(time);
+			final Long size = sizes.get(modelID);
+			if ((size != null) && (size > 0)) {
+				algorithmTimesPerSize.computeIfAbsent(algorithmName, k -> new Mean()).add((double) time / size);
+			}
+			totalTime.add(time);
+		});
+	}
+
+	private static long getKey(int modelID, int algorithmID) {
+		return ((long) modelID << 32) | (algorithmID & 0xFFFFFFFFL);
+	}
+
+	private static String getKey(String modelName, String algorithmName) {
+		return modelName + "\0" + algorithmName;
+	}
+
+	/**
+	 * @return whether the estimates are based on recorded run times (in milliseconds)
+	 */
+	boolean hasHistory() {
+		return totalTime.count > 0;
+	}
+
+	/**
+	 * @param modelSize the number of variables and clauses of the model or -1 if it is unknown
+	 * @return the estimated cost of one run of the given algorithm on the given model
+	 */
+	double getCost(String modelName, String algorithmName, long modelSize) {
+		final Mean pairTime = pairTimes.get(getKey(modelName, algorithmName));
+		if (pairTime != null) {
+			return pairTime.get();
+		}
+		final long size = (modelSize >= 0) ? modelSize : modelSizes.getOrDefault(modelName, -1L);
+		final Mean timePerSize = algorithmTimesPerSize.get(algorithmName);
+		if ((timePerSize != null) && (size >= 0)) {
+			return timePerSize.get() * size;
+		}
+		final Mean algorithmTime = algorithmTimes.get(algorithmName);
+		if (algorithmTime != null) {
+			return algorithmTime.get();
+		}
+		if (hasHistory()) {
+			return totalTime.get();
+		}
+		return Math.max(size, 1);
+	}
+
+	/**
+	 * @param modelSize the number of variables and clauses of the model or -1 if it is unknown
+	 * @return the estimated cost of one run of any algorithm on the given model
+	 */
+	double getCost(String modelName, long modelSize) {
+		final Mean modelTime = modelTimes.get(modelName);
+		if (modelTime != null) {
+			return modelTime.get();
+		}
+		final long size = (modelSize >= 0) ? modelSize : modelSizes.getOrDefault(modelName, -1L);
+		if (size >= 0) {
+			double timePerSize = 0;
+			for (Mean algorithmTimePerSize : algorithmTimesPerSize.values()) {
+				timePerSize += algorithmTimePerSize.get();
+			}
+			return algorithmTimesPerSize.isEmpty() ? size : (timePerSize / algorithmTimesPerSize.size()) * size;
+		}
+		return hasHistory() ? totalTime.get() : 1;
+	}
+
+	/**
+	 * Assigns a dispatched run to the slot with the least predicted load.
+	 */
+	synchronized void addPredictedRun(double cost) {
+		slotLoads.add(slotLoads.poll() + cost);
+	}
+
+	/**
+	 * @return the predicted makespan in milliseconds
+	 */
+	synchronized double getPredictedMakespan() {
+		double makespan = 0;
+		for (Double load : slotLoads) {
+			makespan = Math.max(makespan, load);
+		}
+		return makespan;
+	}
+
+}
@@ -0,0 +1,56 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+
+/**
+ * Entry of the work queue that describes a single algorithm run or a batch of consecutive algorithm iterations.
+ *
+ * @author Sebastian Krieter
+ */
+class RunTask<A extends Algorithm<?>> {
+
+	final SystemContext<A> system;
+	final int systemIteration;
+	final int algorithmIndex;
+	final int algorithmIteration;
+	final int iterationCount;
+
+	/**
+	 * The metrics of the task's algorithm, which are set when the task is planned.
+	 */
+	BenchmarkMetrics.AlgorithmMetrics metrics;
+
+	RunTask(SystemContext<A> system, int systemIteration, int algorithmIndex, int algorithmIteration) {
+		this(system, systemIteration, algorithmIndex, algorithmIteration, 1);
+	}
+
+	RunTask(SystemContext<A> system, int systemIteration, int algorithmIndex, int algorithmIteration,
+			int iterationCount) {
+		this.system = system;
+		this.systemIteration = systemIteration;
+		this.algorithmIndex = algorithmIndex;
+		this.algorithmIteration = algorithmIteration;
+		this.iterationCount = iterationCount;
+	}
+
+}
@@ -0,0 +1,82 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.benchmark.process.ProcessRunner;
+import de.ovgu.featureide.fm.benchmark.process.Result;
+
+/**
+ * An execution slot of the benchmark. Each slot runs one algorithm process at a time, optionally pinned to its own
+ * set of CPU cores, and uses its own temporary directory.
+ *
+ * @author Sebastian Krieter
+ */
+public class Slot<R, A extends Algorithm<R>, K extends Result<R>> {
+
+	private final int index;
+	private final String cpuSet;
+	private final Path tempPath;
+	private final ProcessRunner<R, A, K> processRunner;
+	private final Map<List<String>, Long> spawnTimes = new HashMap<>();
+
+	public Slot(int index, String cpuSet, Path tempPath, ProcessRunner<R, A, K> processRunner) {
+		this.index = index;
+		this.cpuSet = cpuSet;
+		this.tempPath = tempPath;
+		this.processRunner = processRunner;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getCpuSet() {
+		return cpuSet;
+	}
+
+	public Path getTempPath() {
+		return tempPath;
+	}
+
+	public ProcessRunner<R, A, K> getProcessRunner() {
+		return processRunner;
+	}
+
+	/**
+	 * @return the calibrated spawn time in nanoseconds of the given calibration command in this slot or
+	 *         {@link Result#INVALID_TIME} if the command was not calibrated
+	 */
+	public long getSpawnTime(List<String> calibrationCommand) {
+		final Long spawnTime = spawnTimes.get(calibrationCommand);
+		return (spawnTime != null) ? spawnTime : Result.INVALID_TIME;
+	}
+
+	public void setSpawnTime(List<String> calibrationCommand, long spawnTime) {
+		spawnTimes.put(calibrationCommand, spawnTime);
+	}
+
+}
@@ -0,0 +1,284 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.benchmark.util.InputFileCache;
+import de.ovgu.featureide.fm.benchmark.util.InputFileCache.IInputWriter;
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+
+/**
+ * Holds all data of one system (i.e., feature model) that is shared by the runs on this system.
+ * The algorithm instances are kept per slot, such that no algorithm is used by two runs at the same time.
+ *
+ * @author Sebastian Krieter
+ */
+public class SystemContext<A extends Algorithm<?>> {
+
+	/**
+	 * Input files of one system iteration. Files are acquired and released while holding the lock of this object.
+	 */
+	private static class IterationFiles {
+		private final Map<String, Path> files = new HashMap<>();
+		private String contentHash;
+		private boolean released = false;
+	}
+
+	private final int systemIndex;
+	private final int systemID;
+	private final String systemName;
+
+	private final Map<Integer, List<A>> slotAlgorithmLists = new ConcurrentHashMap<>();
+	private final Map<Integer, FutureTask<CNF>> randomizedModelCNFs = new ConcurrentHashMap<>();
+	private final Map<Integer, AtomicInteger> pendingIterationRuns = new ConcurrentHashMap<>();
+	private final Set<Long> failedPairs = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger pendingRuns = new AtomicInteger();
+	private final Map<Integer, String> contentHashes = new ConcurrentHashMap<>();
+	private final Map<Integer, IterationFiles> inputFiles = new ConcurrentHashMap<>();
+	private final Map<String, IInputWriter> inputFormats = new ConcurrentHashMap<>();
+
+	private final InputFileCache inputFileCache;
+
+	private volatile List<A> algorithmList;
+	private volatile CNF modelCNF;
+	private volatile long modelLoadTime = -1;
+	private volatile boolean failed = false;
+
+	public SystemContext(int systemIndex, int systemID, String systemName, InputFileCache inputFileCache) {
+		this.systemIndex = systemIndex;
+		this.systemID = systemID;
+		this.systemName = systemName;
+		this.inputFileCache = inputFileCache;
+	}
+
+	public int getSystemIndex() {
+		return systemIndex;
+	}
+
+	public int getSystemID() {
+		return systemID;
+	}
+
+	public String getSystemName() {
+		return systemName;
+	}
+
+	public List<A> getAlgorithmList() {
+		return algorithmList;
+	}
+
+	public void setAlgorithmList(List<A> algorithmList) {
+		this.algorithmList = algorithmList;
+	}
+
+	public List<A> getAlgorithmList(int slotIndex) {
+		return slotIndex == 0 ? algorithmList : slotAlgorithmLists.get(slotIndex);
+	}
+
+	public void setAlgorithmList(int slotIndex, List<A> algorithmList) {
+		if (slotIndex == 0) {
+			this.algorithmList = algorithmList;
+		} else {
+			slotAlgorithmLists.put(slotIndex, algorithmList);
+		}
+	}
+
+	public CNF getModelCNF() {
+		return modelCNF;
+	}
+
+	public void setModelCNF(CNF modelCNF) {
+		this.modelCNF = modelCNF;
+	}
+
+	/**
+	 * @return the time in nanoseconds that was needed to load the model or -1 if it is not loaded yet
+	 */
+	public long getModelLoadTime() {
+		return modelLoadTime;
+	}
+
+	public void setModelLoadTime(long modelLoadTime) {
+		this.modelLoadTime = modelLoadTime;
+	}
+
+	FutureTask<CNF> getRandomizedModelCNF(int systemIteration, FutureTask<CNF> newTask) {
+		return randomizedModelCNFs.computeIfAbsent(systemIteration, i -> newTask);
+	}
+
+	/**
+	 * Returns a file that contains the given randomized model in the given format. The file is written once and
+	 * shared by all algorithms of the system iteration. It is deleted when all runs of the iteration are finished.
+	 *
+	 * @param systemIteration the system iteration
+	 * @param randomizedModelCNF the model of the system iteration
+	 * @param format the name of the format, which is also used as file extension
+	 * @param writer writes the model in the format. All algorithms must use writers of the same class for a format.
+	 * @throws IllegalArgumentException if the format is already written by a writer of a different class
+	 * @throws IllegalStateException if all runs of the system iteration are already finished
+	 */
+	public Path getInputFile(int systemIteration, CNF randomizedModelCNF, String format, IInputWriter writer)
+			throws Exception {
+		final IInputWriter formatWriter = inputFormats.putIfAbsent(format, writer);
+		if ((formatWriter != null) && (formatWriter.getClass() != writer.getClass())) {
+			throw new IllegalArgumentException("Input format " + format + " is already written by "
+					+ formatWriter.getClass().getName() + " instead of " + writer.getClass().getName());
+		}
+		final Path file = acquireInputFile(systemIteration, randomizedModelCNF, format, writer);
+		if (file == null) {
+			throw new IllegalStateException("Input files of system iteration " + systemIteration + " of "
+					+ systemName + " are already released");
+		}
+		return file;
+	}
+
+	/**
+	 * @return the input file or {@code null} if the input files of the system iteration are already released
+	 */
+	private Path acquireInputFile(int systemIteration, CNF randomizedModelCNF, String format, IInputWriter writer)
+			throws Exception {
+		final IterationFiles iterationFiles = inputFiles.computeIfAbsent(systemIteration, i -> new IterationFiles());
+		synchronized (iterationFiles) {
+			if (iterationFiles.released) {
+				return null;
+			}
+			Path file = iterationFiles.files.get(format);
+			if (file == null) {
+				if (iterationFiles.contentHash == null) {
+					iterationFiles.contentHash = getContentHash(systemIteration, randomizedModelCNF);
+				}
+				file = inputFileCache.acquire(iterationFiles.contentHash, randomizedModelCNF, format, writer);
+				iterationFiles.files.put(format, file);
+			}
+			return file;
+		}
+	}
+
+	/**
+	 * Writes the input files of the given system iteration in all formats that were requested for previous
+	 * iterations. Does nothing if all runs of the iteration are already finished.
+	 */
+	void prepareInputFiles(int systemIteration, CNF randomizedModelCNF) throws Exception {
+		if (!hasPendingRuns(systemIteration)) {
+			return;
+		}
+		for (Entry<String, IInputWriter> inputFormat : inputFormats.entrySet()) {
+			if (acquireInputFile(systemIteration, randomizedModelCNF, inputFormat.getKey(),
+					inputFormat.getValue()) == null) {
+				return;
+			}
+		}
+	}
+
+	String getContentHash(int systemIteration, CNF randomizedModelCNF) throws IOException {
+		String contentHash = contentHashes.get(systemIteration);
+		if (contentHash == null) {
+			contentHash = InputFileCache.getContentHash(randomizedModelCNF);
+			contentHashes.put(systemIteration, contentHash);
+		}
+		return contentHash;
+	}
+
+	/**
+	 * Releases the input files of the given system iteration. Files that are requested afterwards are not acquired
+	 * anymore.
+	 */
+	private void releaseInputFiles(int systemIteration) {
+		final IterationFiles iterationFiles = inputFiles.computeIfAbsent(systemIteration, i -> new IterationFiles());
+		synchronized (iterationFiles) {
+			iterationFiles.released = true;
+			for (String format : iterationFiles.files.keySet()) {
+				inputFileCache.release(iterationFiles.contentHash, format);
+			}
+			iterationFiles.files.clear();
+		}
+		contentHashes.remove(systemIteration);
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public void setFailed() {
+		failed = true;
+	}
+
+	public boolean isPairFailed(int systemIteration, int algorithmIndex) {
+		return failedPairs.contains(getPairKey(systemIteration, algorithmIndex));
+	}
+
+	public void setPairFailed(int systemIteration, int algorithmIndex) {
+		failedPairs.add(getPairKey(systemIteration, algorithmIndex));
+	}
+
+	private long getPairKey(int systemIteration, int algorithmIndex) {
+		return ((long) systemIteration << 32) | algorithmIndex;
+	}
+
+	boolean hasPendingRuns(int systemIteration) {
+		return pendingIterationRuns.containsKey(systemIteration);
+	}
+
+	void addPendingRuns(int systemIteration, int runCount) {
+		pendingIterationRuns.put(systemIteration, new AtomicInteger(runCount));
+		pendingRuns.addAndGet(runCount);
+	}
+
+	/**
+	 * Marks one run of the given system iteration as done. Data that is not needed by any pending run is released.
+	 *
+	 * @return {@code true} if this was the last pending run of the system
+	 */
+	boolean finishRun(int systemIteration) {
+		final AtomicInteger pendingIteration = pendingIterationRuns.get(systemIteration);
+		if ((pendingIteration != null) && (pendingIteration.decrementAndGet() == 0)) {
+			pendingIterationRuns.remove(systemIteration);
+			randomizedModelCNFs.remove(systemIteration);
+			releaseInputFiles(systemIteration);
+		}
+		if (pendingRuns.decrementAndGet() == 0) {
+			dispose();
+			return true;
+		}
+		return false;
+	}
+
+	void dispose() {
+		for (Integer systemIteration : inputFiles.keySet()) {
+			releaseInputFiles(systemIteration);
+		}
+		randomizedModelCNFs.clear();
+		slotAlgorithmLists.clear();
+		modelCNF = null;
+	}
+
+}
@@ -0,0 +1,121 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.ovgu.featureide.fm.benchmark.process.Algorithm;
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+
+/**
+ * Decides which runs are skipped because they are expected to time out. A run is pruned if its algorithm already
+ * timed out a given number of times on the same model, or if its algorithm timed out on another model that is
+ * strictly smaller than the current model (i.e., it has at most as many variables and clauses and fewer of at least
+ * one of them).
+ *
+ * @author Sebastian Krieter
+ */
+class TimeoutPruning {
+
+	static final String TIMEOUTS = "Timeouts";
+	static final String LARGER_MODEL = "LargerModel";
+
+	private final int maxTimeouts;
+	private final boolean pruneLargerModels;
+	private final ResumeIndex resumeIndex;
+
+	private final Map<Long, Integer> timeouts = new ConcurrentHashMap<>();
+	private final Map<String, List<long[]>> timeoutModelSizes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxTimeouts the number of timeouts on a model after which all remaining runs on this model are pruned
+	 *        (0 to disable)
+	 * @param pruneLargerModels whether to prune all runs on models that are larger than a model with a timeout
+	 * @param resumeIndex the recorded runs of a resumed benchmark or {@code null}
+	 */
+	TimeoutPruning(int maxTimeouts, boolean pruneLargerModels, ResumeIndex resumeIndex) {
+		this.maxTimeouts = maxTimeouts;
+		this.pruneLargerModels = pruneLargerModels;
+		this.resumeIndex = resumeIndex;
+		if (pruneLargerModels && (resumeIndex != null)) {
+			for (Entry<String, List<long[]>> entry : resumeIndex.getTimeoutModelSizes().entrySet()) {
+				timeoutModelSizes.put(entry.getKey(), new CopyOnWriteArrayList<>(entry.getValue()));
+			}
+		}
+	}
+
+	void addTimeout(SystemContext<?> system, int algorithmIndex, Algorithm<?> algorithm) {
+		timeouts.merge(getKey(system, algorithmIndex), 1, Integer::sum);
+		if (pruneLargerModels) {
+			final long[] size = getSize(system);
+			if (size != null) {
+				timeoutModelSizes.computeIfAbsent(algorithm.getFullName(), k -> new CopyOnWriteArrayList<>())
+						.add(size);
+			}
+		}
+	}
+
+	/**
+	 * @return the reason for pruning the given run or {@code null} if the run should be executed
+	 */
+	String getPruneReason(SystemContext<?> system, int algorithmIndex, Algorithm<?> algorithm) {
+		if (maxTimeouts > 0) {
+			int timeoutCount = timeouts.getOrDefault(getKey(system, algorithmIndex), 0);
+			if (resumeIndex != null) {
+				timeoutCount += resumeIndex.getTimeoutCount(system.getSystemID(), algorithmIndex);
+			}
+			if (timeoutCount >= maxTimeouts) {
+				return TIMEOUTS;
+			}
+		}
+		if (pruneLargerModels) {
+			final List<long[]> sizes = timeoutModelSizes.get(algorithm.getFullName());
+			final long[] size = getSize(system);
+			if ((sizes != null) && (size != null)) {
+				for (long[] timeoutSize : sizes) {
+					if ((timeoutSize[0] != size[0]) && (timeoutSize[1] <= size[1]) && (timeoutSize[2] <= size[2])
+							&& ((timeoutSize[1] < size[1]) || (timeoutSize[2] < size[2]))) {
+						return LARGER_MODEL;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the system ID, number of variables, and number of clauses of the given system
+	 */
+	private static long[] getSize(SystemContext<?> system) {
+		final CNF modelCNF = system.getModelCNF();
+		return (modelCNF == null) ? null
+				: new long[] { system.getSystemID(), modelCNF.getVariables().size(), modelCNF.getClauses().size() };
+	}
+
+	private static long getKey(SystemContext<?> system, int algorithmIndex) {
+		return ((long) system.getSystemID() << 32) | (algorithmIndex & 0xFFFFFFFFL);
+	}
+
+}
@@ -0,0 +1,181 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import org.sk.utils.Logger;
+import org.sk.utils.io.CSVWriter;
+
+/**
+ * Collects rows in memory and writes them in batches from a background thread. A batch is written as soon as a
+ * writer has a given number of pending rows or a given time has passed. Thus, in case of a crash, at most the rows
+ * of the last batch are lost. On {@link #checkpoint()} and {@link #close()}, all pending rows are written and the
+ * files are synced to disk.
+ * <p>
+ * Pending rows are kept apart from their writers and are only handed to them while a batch is written. Thus,
+ * threads that add rows never wait for file I/O. Batches are taken and written under a separate lock, such that rows
+ * are written in order and a checkpoint includes every batch that was taken before.
+ *
+ * @author Sebastian Krieter
+ */
+public class BatchedResultSink implements IResultSink {
+
+	private final int batchSize;
+	private final long batchInterval;
+
+	private final Map<CSVWriter, Path> files = new LinkedHashMap<>();
+	private final Map<CSVWriter, List<List<Object>>> pendingRows = new LinkedHashMap<>();
+	private final Object flushLock = new Object();
+	private final Thread writerThread;
+
+	private boolean fullBatch = false;
+	private boolean closed = false;
+
+	/**
+	 * @param batchSize the maximum number of pending rows per writer
+	 * @param batchInterval the maximum time in milliseconds before pending rows are written
+	 * @throws IllegalArgumentException if the batch size or the batch interval is not positive
+	 */
+	public BatchedResultSink(int batchSize, long batchInterval) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		if (batchInterval <= 0) {
+			throw new IllegalArgumentException("Batch interval must be positive: " + batchInterval);
+		}
+		this.batchSize = batchSize;
+		this.batchInterval = batchInterval;
+		writerThread = new Thread(this::writeBatches, "ResultWriter");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public synchronized void addWriter(CSVWriter writer, Path file) {
+		files.put(writer, file);
+		pendingRows.put(writer, new ArrayList<>());
+	}
+
+	@Override
+	public void write(CSVWriter writer, Consumer<CSVWriter> writing) {
+		final RowRecorder row = new RowRecorder();
+		writing.accept(row);
+		synchronized (this) {
+			final List<List<Object>> rows = pendingRows.computeIfAbsent(writer, w -> new ArrayList<>());
+			rows.add(row.getValues());
+			if (rows.size() >= batchSize) {
+				fullBatch = true;
+				notifyAll();
+			}
+		}
+	}
+
+	private void writeBatches() {
+		while (true) {
+			synchronized (this) {
+				if (!fullBatch && !closed) {
+					try {
+						wait(batchInterval);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (closed) {
+					return;
+				}
+				fullBatch = false;
+			}
+			flush();
+		}
+	}
+
+	private void flush() {
+		synchronized (flushLock) {
+			final Map<CSVWriter, List<List<Object>>> batch = new LinkedHashMap<>();
+			synchronized (this) {
+				for (Entry<CSVWriter, List<List<Object>>> entry : pendingRows.entrySet()) {
+					if (!entry.getValue().isEmpty()) {
+						batch.put(entry.getKey(), entry.getValue());
+						entry.setValue(new ArrayList<>());
+					}
+				}
+			}
+			for (Entry<CSVWriter, List<List<Object>>> entry : batch.entrySet()) {
+				final CSVWriter writer = entry.getKey();
+				synchronized (writer) {
+					for (List<Object> row : entry.getValue()) {
+						writer.createNewLine();
+						for (Object value : row) {
+							writer.addValue(value);
+						}
+					}
+					writer.flush();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void checkpoint() {
+		synchronized (flushLock) {
+			flush();
+			final Path[] paths;
+			synchronized (this) {
+				paths = files.values().toArray(new Path[0]);
+			}
+			for (Path path : paths) {
+				if (Files.exists(path)) {
+					try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+						channel.force(true);
+					} catch (IOException e) {
+						Logger.getInstance().logError(e);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Logger.getInstance().logError(e);
+		}
+		checkpoint();
+	}
+
+}
@@ -0,0 +1,127 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Converts existing CSV output into columnar files. Each CSV file within the given directories is converted into a
+ * file with the same name and the extension .col next to it.
+ *
+ * @author Sebastian Krieter
+ */
+public class ColumnarConverter {
+
+	private static final Pattern LONG_PATTERN = Pattern.compile("-?\\d{1,18}");
+	private static final Pattern DOUBLE_PATTERN = Pattern.compile("-?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: ColumnarConverter <directory>...");
+			return;
+		}
+		for (String arg : args) {
+			final List<Path> csvFiles;
+			try (Stream<Path> files = Files.walk(Paths.get(arg))) {
+				csvFiles = files.filter(file -> file.getFileName().toString().endsWith(".csv"))
+						.collect(Collectors.toList());
+			}
+			for (Path csvFile : csvFiles) {
+				final Path columnarFile = ColumnarResultSink.getColumnarFile(csvFile);
+				try {
+					final long rowCount = convert(csvFile, columnarFile);
+					System.out.println(csvFile + " -> " + columnarFile + " (" + rowCount + " rows)");
+				} catch (IOException e) {
+					System.err.println("Could not convert " + csvFile + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts a CSV file with a header line. The separator is detected from the header.
+	 *
+	 * @return the number of converted rows
+	 */
+	public static long convert(Path csvFile, Path columnarFile) throws IOException {
+		Files.deleteIfExists(columnarFile);
+		try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+			final String headerLine = reader.readLine();
+			if (headerLine == null) {
+				throw new IOException("Missing header");
+			}
+			final String separator = Pattern.quote(getSeparator(headerLine));
+			final List<String> header = Arrays.asList(headerLine.split(separator, -1));
+			long rowCount = 0;
+			try (ColumnarWriter writer = new ColumnarWriter(columnarFile, header, false,
+					ColumnarWriter.DEFAULT_BLOCK_SIZE)) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					final String[] values = line.split(separator, -1);
+					final List<Object> row = new ArrayList<>(header.size());
+					for (int i = 0; i < header.size(); i++) {
+						row.add(i < values.length ? parseValue(values[i]) : null);
+					}
+					writer.addRow(row);
+					rowCount++;
+				}
+			}
+			return rowCount;
+		}
+	}
+
+	private static String getSeparator(String headerLine) {
+		for (String separator : new String[] { ";", ",", "\t" }) {
+			if (headerLine.contains(separator)) {
+				return separator;
+			}
+		}
+		return ";";
+	}
+
+	private static Object parseValue(String value) {
+		if (value.isEmpty()) {
+			return null;
+		} else if (LONG_PATTERN.matcher(value).matches()) {
+			return Long.parseLong(value);
+		} else if (DOUBLE_PATTERN.matcher(value).matches()) {
+			return Double.parseDouble(value);
+		} else if ("true".equals(value) || "false".equals(value)) {
+			return Boolean.parseBoolean(value);
+		} else {
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout of the columnar result files.
+ * <p>
+ * A file starts with a magic number and a version followed by blocks of rows. Each block stores each of its columns
+ * as a separately deflated chunk. The chunk type is determined per block and column (long, double, boolean, or
+ * string). The footer contains the column names and, for each block, the row count, the location of each chunk, and
+ * the value range of the index columns (e.g., ModelID and AlgorithmID). The file ends with the offset of the footer
+ * and the magic number.
+ * <p>
+ * New blocks and a new footer are appended after the previous footer, which therefore stays valid until the new
+ * footer is completely written. If a file ends with an incomplete append (e.g., after a crash), the last complete
+ * footer is used.
+ *
+ * @author Sebastian Krieter
+ */
+final class ColumnarFormat {
+
+	static final int MAGIC_NUMBER = 0x434F4C31;
+	static final int VERSION = 1;
+	static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+
+	static final byte TYPE_LONG = 1;
+	static final byte TYPE_DOUBLE = 2;
+	static final byte TYPE_BOOLEAN = 3;
+	static final byte TYPE_STRING = 4;
+
+	static final class Chunk {
+		byte type;
+		long offset;
+		int compressedLength;
+		int rawLength;
+	}
+
+	static final class Block {
+		int rowCount;
+		Chunk[] chunks;
+		long[] indexMin;
+		long[] indexMax;
+	}
+
+	static final class Footer {
+		final List<String> columnNames = new ArrayList<>();
+		int[] indexColumns = new int[0];
+		final List<Block> blocks = new ArrayList<>();
+	}
+
+	private ColumnarFormat() {
+	}
+
+	static byte[] writeFooter(Footer footer) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(footer.columnNames.size());
+			for (String columnName : footer.columnNames) {
+				writeString(out, columnName);
+			}
+			out.writeInt(footer.indexColumns.length);
+			for (int indexColumn : footer.indexColumns) {
+				out.writeInt(indexColumn);
+			}
+			out.writeInt(footer.blocks.size());
+			for (Block block : footer.blocks) {
+				out.writeInt(block.rowCount);
+				for (Chunk chunk : block.chunks) {
+					out.writeByte(chunk.type);
+					out.writeLong(chunk.offset);
+					out.writeInt(chunk.compressedLength);
+					out.writeInt(chunk.rawLength);
+				}
+				for (int i = 0; i < footer.indexColumns.length; i++) {
+					out.writeLong(block.indexMin[i]);
+					out.writeLong(block.indexMax[i]);
+				}
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads the last complete footer of a file.
+	 *
+	 * @return the footer
+	 * @throws IOException if the file is no valid columnar result file
+	 */
+	static Footer readFooter(FileChannel channel) throws IOException {
+		return readFooter(channel, getEnd(channel));
+	}
+
+	/**
+	 * Reads the footer that ends at the given position.
+	 */
+	static Footer readFooter(FileChannel channel, long end) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+		readFully(channel, header, 0);
+		if (header.getInt(0) != MAGIC_NUMBER) {
+			throw new IOException("Not a columnar result file");
+		}
+		if (header.getInt(Integer.BYTES) != VERSION) {
+			throw new IOException("Unsupported version " + header.getInt(Integer.BYTES));
+		}
+		final long footerOffset = getFooterOffset(channel, end);
+		return parseFooter(channel.map(MapMode.READ_ONLY, footerOffset, end - TRAILER_LENGTH - footerOffset));
+	}
+
+	/**
+	 * Returns the end of the last complete footer. This is the end of the file, unless the file ends with an
+	 * incomplete append. In this case, the trailer of the previous footer is searched backwards.
+	 *
+	 * @throws IOException if there is no complete footer
+	 */
+	static long getEnd(FileChannel channel) throws IOException {
+		final long length = channel.size();
+		if (length < ((2 * Integer.BYTES) + TRAILER_LENGTH)) {
+			throw new IOException("Not a columnar result file");
+		}
+		if (isFooterEnd(channel, length)) {
+			return length;
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = length;
+		while (position > (2 * Integer.BYTES)) {
+			final int bufferLength = (int) Math.min(buffer.capacity(), position - (2 * Integer.BYTES));
+			buffer.clear();
+			buffer.limit(bufferLength);
+			readFully(channel, buffer, position - bufferLength);
+			// a trailer ends with the magic number, which may cross the buffer boundary
+			for (int i = bufferLength - 1; i >= 0; i--) {
+				final long end = (position - bufferLength) + i + Integer.BYTES;
+				if ((end <= length) && (buffer.get(i) == (byte) (MAGIC_NUMBER >>> 24))
+						&& isFooterEnd(channel, end)) {
+					return end;
+				}
+			}
+			position -= bufferLength;
+		}
+		throw new IOException("Not a columnar result file");
+	}
+
+	private static boolean isFooterEnd(FileChannel channel, long end) throws IOException {
+		if (end < ((2 * Integer.BYTES) + TRAILER_LENGTH)) {
+			return false;
+		}
+		final ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+		readFully(channel, trailer, end - TRAILER_LENGTH);
+		final long footerOffset = trailer.getLong(0);
+		if ((trailer.getInt(Long.BYTES) != MAGIC_NUMBER) || (footerOffset < (2 * Integer.BYTES))
+				|| (footerOffset > (end - TRAILER_LENGTH))) {
+			return false;
+		}
+		try {
+			final ByteBuffer in = channel.map(MapMode.READ_ONLY, footerOffset, end - TRAILER_LENGTH - footerOffset);
+			parseFooter(in);
+			return !in.hasRemaining();
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static Footer parseFooter(ByteBuffer in) {
+		final Footer footer = new Footer();
+		final int columnCount = readCount(in);
+		for (int i = 0; i < columnCount; i++) {
+			footer.columnNames.add(readString(in));
+		}
+		footer.indexColumns = new int[readCount(in)];
+		for (int i = 0; i < footer.indexColumns.length; i++) {
+			footer.indexColumns[i] = in.getInt();
+		}
+		final int blockCount = readCount(in);
+		for (int i = 0; i < blockCount; i++) {
+			final Block block = new Block();
+			block.rowCount = in.getInt();
+			block.chunks = new Chunk[columnCount];
+			for (int j = 0; j < columnCount; j++) {
+				final Chunk chunk = new Chunk();
+				chunk.type = in.get();
+				chunk.offset = in.getLong();
+				chunk.compressedLength = in.getInt();
+				chunk.rawLength = in.getInt();
+				block.chunks[j] = chunk;
+			}
+			block.indexMin = new long[footer.indexColumns.length];
+			block.indexMax = new long[footer.indexColumns.length];
+			for (int j = 0; j < footer.indexColumns.length; j++) {
+				block.indexMin[j] = in.getLong();
+				block.indexMax[j] = in.getLong();
+			}
+			footer.blocks.add(block);
+		}
+		return footer;
+	}
+
+	private static int readCount(ByteBuffer in) {
+		final int count = in.getInt();
+		if ((count < 0) || (count > in.remaining())) {
+			throw new IllegalArgumentException("Invalid count " + count);
+		}
+		return count;
+	}
+
+	static long getFooterOffset(FileChannel channel, long end) throws IOException {
+		final ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+		readFully(channel, trailer, end - TRAILER_LENGTH);
+		return trailer.getLong(0);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static String readString(ByteBuffer in) {
+		final int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		final byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,286 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_BOOLEAN;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_DOUBLE;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_LONG;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Block;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Chunk;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Footer;
+import de.ovgu.featureide.fm.benchmark.util.QuantileSketch;
+
+/**
+ * Reads columnar result files (see {@link ColumnarFormat}). Only the chunks of the columns required by a query are
+ * mapped and decompressed, and blocks are skipped if their index range does not match the query's filter.
+ *
+ * @author Sebastian Krieter
+ */
+public class ColumnarReader implements Closeable {
+
+	private static final double RELATIVE_ACCURACY = 0.01;
+
+	private final FileChannel channel;
+	private final Footer footer;
+
+	public ColumnarReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			footer = ColumnarFormat.readFooter(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public List<String> getColumnNames() {
+		return Collections.unmodifiableList(footer.columnNames);
+	}
+
+	public long getRowCount() {
+		return footer.blocks.stream().mapToLong(block -> block.rowCount).sum();
+	}
+
+	public Map<List<Object>, double[]> getQuantiles(String valueColumn, List<String> groupColumns,
+			double... quantiles) throws IOException {
+		return getQuantiles(valueColumn, groupColumns, Collections.<String, Long> emptyMap(), quantiles);
+	}
+
+	/**
+	 * Computes quantiles of a numeric column for each group of rows with the same values in the group columns. The
+	 * quantiles are computed with {@link QuantileSketch sketches} with a relative accuracy of 1%, such that the
+	 * memory does not depend on the number of rows. Decimal values are rounded and negative values (i.e., missing
+	 * measurements) are ignored.
+	 *
+	 * @param valueColumn the column to aggregate (e.g., Time)
+	 * @param groupColumns the columns to group by (e.g., ModelID and AlgorithmID)
+	 * @param filter required values for integer columns. Rows with different values are ignored.
+	 * @param quantiles the quantiles to compute, each between 0 and 1 (e.g., 0.5 for the median)
+	 * @return for each group, the group values and the corresponding quantiles. The last element of the array is
+	 *         the number of values in the group.
+	 */
+	public Map<List<Object>, double[]> getQuantiles(String valueColumn, List<String> groupColumns,
+			Map<String, Long> filter, double... quantiles) throws IOException {
+		final int valueIndex = getColumnIndex(valueColumn);
+		final int[] groupIndexes = groupColumns.stream().mapToInt(this::getColumnIndex).toArray();
+		final int[] filterIndexes = new int[filter.size()];
+		final long[] filterValues = new long[filter.size()];
+		int f = 0;
+		for (Entry<String, Long> entry : filter.entrySet()) {
+			filterIndexes[f] = getColumnIndex(entry.getKey());
+			filterValues[f++] = entry.getValue();
+		}
+
+		final Map<List<Object>, QuantileSketch> groups = new LinkedHashMap<>();
+		blockLoop: for (Block block : footer.blocks) {
+			for (int i = 0; i < filterIndexes.length; i++) {
+				if (!mayContain(block, filterIndexes[i], filterValues[i])
+						|| (block.chunks[filterIndexes[i]].type != TYPE_LONG)) {
+					continue blockLoop;
+				}
+			}
+			final Chunk valueChunk = block.chunks[valueIndex];
+			if ((valueChunk.type != TYPE_LONG) && (valueChunk.type != TYPE_DOUBLE)) {
+				continue;
+			}
+			final ByteBuffer[] filterColumns = new ByteBuffer[filterIndexes.length];
+			for (int i = 0; i < filterIndexes.length; i++) {
+				filterColumns[i] = readChunk(block, filterIndexes[i]);
+			}
+			final Object[][] groupValues = new Object[groupIndexes.length][];
+			for (int i = 0; i < groupIndexes.length; i++) {
+				groupValues[i] = readColumn(block, groupIndexes[i]);
+			}
+			final ByteBuffer values = readChunk(block, valueIndex);
+			rowLoop: for (int row = 0; row < block.rowCount; row++) {
+				for (int i = 0; i < filterIndexes.length; i++) {
+					if (filterColumns[i].getLong(row * Long.BYTES) != filterValues[i]) {
+						continue rowLoop;
+					}
+				}
+				final long value = (valueChunk.type == TYPE_LONG) ? values.getLong(row * Long.BYTES)
+						: Math.round(values.getDouble(row * Double.BYTES));
+				if (value >= 0) {
+					final List<Object> key = new ArrayList<>(groupIndexes.length);
+					for (int i = 0; i < groupIndexes.length; i++) {
+						key.add(groupValues[i][row]);
+					}
+					groups.computeIfAbsent(key, k -> new QuantileSketch(RELATIVE_ACCURACY)).add(value);
+				}
+			}
+		}
+
+		final Map<List<Object>, double[]> result = new LinkedHashMap<>();
+		for (Entry<List<Object>, QuantileSketch> entry : groups.entrySet()) {
+			final QuantileSketch sketch = entry.getValue();
+			final double[] groupQuantiles = new double[quantiles.length + 1];
+			for (int i = 0; i < quantiles.length; i++) {
+				groupQuantiles[i] = sketch.getQuantile(quantiles[i]);
+			}
+			groupQuantiles[quantiles.length] = sketch.getCount();
+			result.put(entry.getKey(), groupQuantiles);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the given columns of all rows in the order in which the rows were written.
+	 *
+	 * @param columns the columns to read
+	 * @param rowConsumer receives the values of each row in the order of the given columns. The array is reused for
+	 *        all rows.
+	 */
+	public void readRows(List<String> columns, Consumer<Object[]> rowConsumer) throws IOException {
+		final int[] columnIndexes = columns.stream().mapToInt(this::getColumnIndex).toArray();
+		final Object[] row = new Object[columnIndexes.length];
+		final Object[][] columnValues = new Object[columnIndexes.length][];
+		for (Block block : footer.blocks) {
+			for (int i = 0; i < columnIndexes.length; i++) {
+				columnValues[i] = readColumn(block, columnIndexes[i]);
+			}
+			for (int rowIndex = 0; rowIndex < block.rowCount; rowIndex++) {
+				for (int i = 0; i < columnIndexes.length; i++) {
+					row[i] = columnValues[i][rowIndex];
+				}
+				rowConsumer.accept(row);
+			}
+		}
+	}
+
+	private boolean mayContain(Block block, int column, long value) {
+		for (int i = 0; i < footer.indexColumns.length; i++) {
+			if (footer.indexColumns[i] == column) {
+				return (block.indexMin[i] <= value) && (value <= block.indexMax[i]);
+			}
+		}
+		return true;
+	}
+
+	private int getColumnIndex(String columnName) {
+		final int index = footer.columnNames.indexOf(columnName);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unknown column " + columnName);
+		}
+		return index;
+	}
+
+	/**
+	 * Reads all values of a column in the given block.
+	 */
+	private Object[] readColumn(Block block, int column) throws IOException {
+		final Chunk chunk = block.chunks[column];
+		final ByteBuffer in = readChunk(block, column);
+		final Object[] values = new Object[block.rowCount];
+		for (int i = 0; i < values.length; i++) {
+			switch (chunk.type) {
+			case TYPE_LONG:
+				values[i] = in.getLong();
+				break;
+			case TYPE_DOUBLE:
+				values[i] = in.getDouble();
+				break;
+			case TYPE_BOOLEAN:
+				values[i] = in.get() != 0;
+				break;
+			default:
+				values[i] = ColumnarFormat.readString(in);
+				break;
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Reads the uncompressed data of a column in the given block.
+	 */
+	private ByteBuffer readChunk(Block block, int column) throws IOException {
+		final Chunk chunk = block.chunks[column];
+		final ByteBuffer mappedChunk = channel.map(MapMode.READ_ONLY, chunk.offset, chunk.compressedLength);
+		final byte[] compressed = new byte[chunk.compressedLength];
+		mappedChunk.get(compressed);
+		final byte[] raw = new byte[chunk.rawLength];
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int length = 0;
+			while (length < raw.length) {
+				final int inflated = inflater.inflate(raw, length, raw.length - length);
+				if ((inflated == 0) && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("Corrupt chunk at " + chunk.offset);
+				}
+				length += inflated;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+		return ByteBuffer.wrap(raw);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Prints count, median, 90th and 99th percentile of a column (default: Time) per ModelID and AlgorithmID.
+	 *
+	 * @param args the columnar file and, optionally, the column to aggregate
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: ColumnarReader <file> [column]");
+			return;
+		}
+		final String valueColumn = (args.length > 1) ? args[1] : "Time";
+		try (ColumnarReader reader = new ColumnarReader(Paths.get(args[0]))) {
+			final Map<List<Object>, double[]> quantiles = reader.getQuantiles(valueColumn, ColumnarWriter.INDEX_COLUMNS,
+					0.5, 0.9, 0.99);
+			System.out.println("ModelID;AlgorithmID;Count;Median;P90;P99");
+			for (Entry<List<Object>, double[]> entry : quantiles.entrySet()) {
+				final double[] values = entry.getValue();
+				System.out.println(entry.getKey().get(0) + ";" + entry.getKey().get(1) + ";" + (long) values[3] + ";"
+						+ values[0] + ";" + values[1] + ";" + values[2]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.sk.utils.Logger;
+import org.sk.utils.io.CSVWriter;
+
+/**
+ * Writes the rows of each {@link RecordingCSVWriter} into a columnar file next to its CSV file (e.g., data.col for
+ * data.csv). If a CSV sink is given, rows are written to both formats. Otherwise, the CSV files only contain their
+ * header.
+ *
+ * @author Sebastian Krieter
+ */
+public class ColumnarResultSink implements IResultSink {
+
+	private final IResultSink csvSink;
+	private final boolean append;
+
+	private final Map<CSVWriter, Path> files = new LinkedHashMap<>();
+	private final Map<CSVWriter, ColumnarWriter> columnarWriters = new LinkedHashMap<>();
+
+	/**
+	 * @param csvSink the sink for the CSV rows or {@code null} if rows should only be written in columnar format
+	 * @param append whether to append to existing columnar files
+	 */
+	public ColumnarResultSink(IResultSink csvSink, boolean append) {
+		this.csvSink = csvSink;
+		this.append = append;
+	}
+
+	@Override
+	public synchronized void addWriter(CSVWriter writer, Path file) {
+		if (csvSink != null) {
+			csvSink.addWriter(writer, file);
+		}
+		files.put(writer, getColumnarFile(file));
+	}
+
+	/**
+	 * @return the columnar file that is written next to the given CSV file (e.g., data.col for data.csv)
+	 */
+	public static Path getColumnarFile(Path csvFile) {
+		final String fileName = csvFile.getFileName().toString();
+		final int extensionIndex = fileName.lastIndexOf('.');
+		return csvFile.resolveSibling(((extensionIndex > 0) ? fileName.substring(0, extensionIndex) : fileName) + ".col");
+	}
+
+	@Override
+	public void write(CSVWriter writer, Consumer<CSVWriter> writing) {
+		if (!(writer instanceof RecordingCSVWriter)) {
+			if (csvSink != null) {
+				csvSink.write(writer, writing);
+			}
+			return;
+		}
+		final RowRecorder row = new RowRecorder();
+		writing.accept(row);
+		if (csvSink != null) {
+			csvSink.write(writer, w -> row.getValues().forEach(w::addValue));
+		}
+		addRow((RecordingCSVWriter) writer, row.getValues());
+	}
+
+	private void addRow(RecordingCSVWriter writer, List<Object> line) {
+		try {
+			getColumnarWriter(writer).addRow(line);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private synchronized ColumnarWriter getColumnarWriter(RecordingCSVWriter writer) throws IOException {
+		ColumnarWriter columnarWriter = columnarWriters.get(writer);
+		if (columnarWriter == null) {
+			columnarWriter = new ColumnarWriter(files.get(writer), writer.getHeader(), append,
+					ColumnarWriter.DEFAULT_BLOCK_SIZE);
+			columnarWriters.put(writer, columnarWriter);
+		}
+		return columnarWriter;
+	}
+
+	@Override
+	public void checkpoint() {
+		if (csvSink != null) {
+			csvSink.checkpoint();
+		}
+		final ColumnarWriter[] writers;
+		synchronized (this) {
+			writers = columnarWriters.values().toArray(new ColumnarWriter[0]);
+		}
+		for (ColumnarWriter columnarWriter : writers) {
+			try {
+				columnarWriter.sync();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (csvSink != null) {
+			csvSink.close();
+		}
+		final ColumnarWriter[] writers;
+		synchronized (this) {
+			writers = columnarWriters.values().toArray(new ColumnarWriter[0]);
+			columnarWriters.clear();
+		}
+		for (ColumnarWriter columnarWriter : writers) {
+			try {
+				columnarWriter.close();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+		}
+	}
+
+}
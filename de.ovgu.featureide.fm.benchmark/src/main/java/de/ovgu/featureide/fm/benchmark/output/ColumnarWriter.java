@@ -0,0 +1,376 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.MAGIC_NUMBER;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_BOOLEAN;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_DOUBLE;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_LONG;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.TYPE_STRING;
+import static de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Block;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Chunk;
+import de.ovgu.featureide.fm.benchmark.output.ColumnarFormat.Footer;
+
+/**
+ * Writes rows into a columnar result file (see {@link ColumnarFormat}). Rows are collected until a block is full
+ * or {@link #flush()} is called. Each block is appended after the current footer followed by a new footer, such that
+ * the file is always readable. If the outdated footers take more space than the blocks, the file is compacted into a
+ * temporary file that replaces the original one.
+ *
+ * @author Sebastian Krieter
+ */
+public class ColumnarWriter implements Closeable {
+
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+	public static final List<String> INDEX_COLUMNS = Arrays.asList("ModelID", "AlgorithmID");
+
+	private static final int HEADER_LENGTH = 2 * Integer.BYTES;
+
+	private final int blockSize;
+	private final Path file;
+	private final Footer footer;
+	private final List<Object[]> rows = new ArrayList<>();
+
+	private FileChannel channel;
+	private long fileEnd;
+	private long footerLength;
+	private long dataLength;
+
+	/**
+	 * @param file the file to write
+	 * @param columnNames the names of all columns
+	 * @param append whether to append to an existing file with the same columns
+	 * @param blockSize the number of rows per block
+	 */
+	public ColumnarWriter(Path file, List<String> columnNames, boolean append, int blockSize) throws IOException {
+		this.blockSize = blockSize;
+		this.file = file;
+		if (append && Files.exists(file) && (Files.size(file) > 0)) {
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				fileEnd = ColumnarFormat.getEnd(channel);
+				footer = ColumnarFormat.readFooter(channel, fileEnd);
+				if (!footer.columnNames.equals(columnNames)) {
+					throw new IOException("Columns of " + file + " do not match " + columnNames);
+				}
+				// discard an incomplete append
+				channel.truncate(fileEnd);
+				footerLength = fileEnd - ColumnarFormat.getFooterOffset(channel, fileEnd);
+				dataLength = HEADER_LENGTH;
+				for (Block block : footer.blocks) {
+					for (Chunk chunk : block.chunks) {
+						dataLength += chunk.compressedLength;
+					}
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		} else {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+			footer = new Footer();
+			footer.columnNames.addAll(columnNames);
+			footer.indexColumns = INDEX_COLUMNS.stream().mapToInt(columnNames::indexOf).filter(i -> i >= 0)
+					.toArray();
+			write(channel, createHeader(), 0);
+			fileEnd = HEADER_LENGTH;
+			dataLength = HEADER_LENGTH;
+			writeFooter();
+		}
+	}
+
+	private static ByteBuffer createHeader() {
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(MAGIC_NUMBER).putInt(VERSION).flip();
+		return header;
+	}
+
+	public List<String> getColumnNames() {
+		return footer.columnNames;
+	}
+
+	/**
+	 * Adds a row. Missing values are stored as {@code null}.
+	 */
+	public synchronized void addRow(List<?> values) throws IOException {
+		final Object[] row = new Object[footer.columnNames.size()];
+		for (int i = 0; i < Math.min(row.length, values.size()); i++) {
+			row[i] = values.get(i);
+		}
+		rows.add(row);
+		if (rows.size() >= blockSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes all pending rows as a new block.
+	 */
+	public synchronized void flush() throws IOException {
+		if (rows.isEmpty()) {
+			return;
+		}
+		final Block block = new Block();
+		block.rowCount = rows.size();
+		block.chunks = new Chunk[footer.columnNames.size()];
+		for (int column = 0; column < block.chunks.length; column++) {
+			block.chunks[column] = writeChunk(column);
+		}
+		block.indexMin = new long[footer.indexColumns.length];
+		block.indexMax = new long[footer.indexColumns.length];
+		for (int i = 0; i < footer.indexColumns.length; i++) {
+			final int column = footer.indexColumns[i];
+			if (block.chunks[column].type == TYPE_LONG) {
+				long min = Long.MAX_VALUE;
+				long max = Long.MIN_VALUE;
+				for (Object[] row : rows) {
+					final long value = toLong(row[column]);
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+				block.indexMin[i] = min;
+				block.indexMax[i] = max;
+			} else {
+				block.indexMin[i] = Long.MIN_VALUE;
+				block.indexMax[i] = Long.MAX_VALUE;
+			}
+		}
+		footer.blocks.add(block);
+		rows.clear();
+		writeFooter();
+		if ((fileEnd - dataLength - footerLength) > dataLength) {
+			compact();
+		}
+	}
+
+	private Chunk writeChunk(int column) throws IOException {
+		final Chunk chunk = new Chunk();
+		chunk.type = getType(column);
+		final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(raw)) {
+			for (Object[] row : rows) {
+				final Object value = row[column];
+				switch (chunk.type) {
+				case TYPE_LONG:
+					out.writeLong(toLong(value));
+					break;
+				case TYPE_DOUBLE:
+					out.writeDouble(toDouble(value));
+					break;
+				case TYPE_BOOLEAN:
+					out.writeBoolean(toBoolean(value));
+					break;
+				default:
+					ColumnarFormat.writeString(out, (value == null) ? null : value.toString());
+					break;
+				}
+			}
+		}
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+			raw.writeTo(out);
+		} finally {
+			deflater.end();
+		}
+		chunk.offset = fileEnd;
+		chunk.rawLength = raw.size();
+		chunk.compressedLength = compressed.size();
+		write(channel, ByteBuffer.wrap(compressed.toByteArray()), fileEnd);
+		fileEnd += chunk.compressedLength;
+		dataLength += chunk.compressedLength;
+		return chunk;
+	}
+
+	private byte getType(int column) {
+		byte type = 0;
+		for (Object[] row : rows) {
+			final byte valueType = getType(row[column]);
+			if (type == 0) {
+				type = valueType;
+			} else if (type != valueType) {
+				if (((type == TYPE_LONG) && (valueType == TYPE_DOUBLE))
+						|| ((type == TYPE_DOUBLE) && (valueType == TYPE_LONG))) {
+					type = TYPE_DOUBLE;
+				} else {
+					return TYPE_STRING;
+				}
+			}
+		}
+		return type == 0 ? TYPE_STRING : type;
+	}
+
+	private static byte getType(Object value) {
+		if (value instanceof Boolean) {
+			return TYPE_BOOLEAN;
+		} else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short)
+				|| (value instanceof Byte)) {
+			return TYPE_LONG;
+		} else if (value instanceof Number) {
+			return TYPE_DOUBLE;
+		} else if (value instanceof String) {
+			final String string = (String) value;
+			if ("true".equals(string) || "false".equals(string)) {
+				return TYPE_BOOLEAN;
+			}
+			try {
+				Long.parseLong(string);
+				return TYPE_LONG;
+			} catch (NumberFormatException e) {
+			}
+			try {
+				Double.parseDouble(string);
+				return TYPE_DOUBLE;
+			} catch (NumberFormatException e) {
+			}
+		}
+		return TYPE_STRING;
+	}
+
+	private static long toLong(Object value) {
+		return (value instanceof Number) ? ((Number) value).longValue() : Long.parseLong(value.toString());
+	}
+
+	private static double toDouble(Object value) {
+		return (value instanceof Number) ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+	}
+
+	private static boolean toBoolean(Object value) {
+		return (value instanceof Boolean) ? (Boolean) value : Boolean.parseBoolean(value.toString());
+	}
+
+	/**
+	 * Appends the footer at the end of the file.
+	 */
+	private void writeFooter() throws IOException {
+		final ByteBuffer buffer = createFooter(footer, fileEnd);
+		footerLength = buffer.remaining();
+		write(channel, buffer, fileEnd);
+		fileEnd += footerLength;
+	}
+
+	private static ByteBuffer createFooter(Footer footer, long footerOffset) throws IOException {
+		final byte[] footerBytes = ColumnarFormat.writeFooter(footer);
+		final ByteBuffer buffer = ByteBuffer.allocate(footerBytes.length + ColumnarFormat.TRAILER_LENGTH);
+		buffer.put(footerBytes).putLong(footerOffset).putInt(MAGIC_NUMBER).flip();
+		return buffer;
+	}
+
+	/**
+	 * Copies all blocks and the current footer into a temporary file, which then replaces the file.
+	 */
+	private void compact() throws IOException {
+		final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		final Footer compactFooter = new Footer();
+		compactFooter.columnNames.addAll(footer.columnNames);
+		compactFooter.indexColumns = footer.indexColumns;
+		final FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ);
+		try {
+			write(tempChannel, createHeader(), 0);
+			long position = HEADER_LENGTH;
+			for (Block block : footer.blocks) {
+				final Block compactBlock = new Block();
+				compactBlock.rowCount = block.rowCount;
+				compactBlock.indexMin = block.indexMin;
+				compactBlock.indexMax = block.indexMax;
+				compactBlock.chunks = new Chunk[block.chunks.length];
+				for (int i = 0; i < block.chunks.length; i++) {
+					final Chunk chunk = block.chunks[i];
+					final Chunk compactChunk = new Chunk();
+					compactChunk.type = chunk.type;
+					compactChunk.offset = position;
+					compactChunk.compressedLength = chunk.compressedLength;
+					compactChunk.rawLength = chunk.rawLength;
+					long transferred = 0;
+					while (transferred < chunk.compressedLength) {
+						transferred += channel.transferTo(chunk.offset + transferred,
+								chunk.compressedLength - transferred, tempChannel.position(position + transferred));
+					}
+					position += chunk.compressedLength;
+					compactBlock.chunks[i] = compactChunk;
+				}
+				compactFooter.blocks.add(compactBlock);
+			}
+			final ByteBuffer footerBuffer = createFooter(compactFooter, position);
+			final long compactFooterLength = footerBuffer.remaining();
+			write(tempChannel, footerBuffer, position);
+			tempChannel.force(true);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			channel.close();
+			channel = tempChannel;
+			footer.blocks.clear();
+			footer.blocks.addAll(compactFooter.blocks);
+			fileEnd = position + compactFooterLength;
+			footerLength = compactFooterLength;
+			dataLength = position;
+		} catch (IOException e) {
+			tempChannel.close();
+			Files.deleteIfExists(tempFile);
+			throw e;
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Writes all pending rows and syncs the file to disk.
+	 */
+	public synchronized void sync() throws IOException {
+		flush();
+		channel.force(true);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+			channel.force(true);
+		} finally {
+			channel.close();
+		}
+	}
+
+}
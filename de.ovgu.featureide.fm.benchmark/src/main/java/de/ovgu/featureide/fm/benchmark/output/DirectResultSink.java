@@ -0,0 +1,61 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.sk.utils.io.CSVWriter;
+
+/**
+ * Writes each row to its file immediately.
+ *
+ * @author Sebastian Krieter
+ */
+public class DirectResultSink implements IResultSink {
+
+	@Override
+	public void addWriter(CSVWriter writer, Path file) {
+	}
+
+	@Override
+	public void write(CSVWriter writer, Consumer<CSVWriter> writing) {
+		synchronized (writer) {
+			writer.createNewLine();
+			try {
+				writing.accept(writer);
+			} catch (Exception e) {
+				writer.resetLine();
+				throw e;
+			}
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void checkpoint() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
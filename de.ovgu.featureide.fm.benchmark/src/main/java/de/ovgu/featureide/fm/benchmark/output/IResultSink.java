@@ -0,0 +1,53 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import org.sk.utils.io.CSVWriter;
+
+/**
+ * Destination for the rows of the result files of a benchmark.
+ *
+ * @author Sebastian Krieter
+ */
+public interface IResultSink {
+
+	/**
+	 * Registers a writer with the file it writes to.
+	 */
+	void addWriter(CSVWriter writer, Path file);
+
+	/**
+	 * Appends a new row to the given writer. The row is either written completely or not at all. Safe to call from
+	 * multiple threads.
+	 */
+	void write(CSVWriter writer, Consumer<CSVWriter> writing);
+
+	/**
+	 * Writes all pending rows to disk.
+	 */
+	void checkpoint();
+
+	void close();
+
+}
@@ -0,0 +1,78 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sk.utils.io.CSVWriter;
+
+/**
+ * CSV writer that additionally keeps its header and the values of its current line, such that they can be written
+ * to other formats.
+ *
+ * @author Sebastian Krieter
+ */
+public class RecordingCSVWriter extends CSVWriter {
+
+	private final List<String> header = new ArrayList<>();
+	private final List<Object> line = new ArrayList<>();
+
+	@Override
+	public void setHeader(List<String> header) {
+		super.setHeader(header);
+		this.header.clear();
+		this.header.addAll(header);
+	}
+
+	@Override
+	public void addHeaderValue(String headerValue) {
+		super.addHeaderValue(headerValue);
+		header.add(headerValue);
+	}
+
+	@Override
+	public void createNewLine() {
+		super.createNewLine();
+		line.clear();
+	}
+
+	@Override
+	public void addValue(Object value) {
+		super.addValue(value);
+		line.add(value);
+	}
+
+	@Override
+	public void resetLine() {
+		super.resetLine();
+		line.clear();
+	}
+
+	public List<String> getHeader() {
+		return new ArrayList<>(header);
+	}
+
+	public List<Object> getLine() {
+		return new ArrayList<>(line);
+	}
+
+}
@@ -1,7 +1,9 @@
 package de.ovgu.featureide.fm.benchmark.process;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -13,6 +15,8 @@ public abstract class Algorithm<R> implements IOutputReader {
 
 	protected final ArrayList<String> commandElements = new ArrayList<>();
 
+	private ResultChannelReader resultChannel = null;
+
 	public abstract void postProcess() throws Exception;
 
 	public abstract R parseResults() throws IOException;
@@ -20,6 +24,47 @@ public abstract class Algorithm<R> implements IOutputReader {
 	public void readOutput(String line) throws Exception {
 	}
 
+	/**
+	 * Algorithms that do not need {@link #readOutput(String)} can return a file here. The standard output of the
+	 * process is then redirected directly into this file.
+	 *
+	 * @return the file for the standard output or {@code null} if the output should be passed to
+	 *         {@link #readOutput(String)}
+	 */
+	public Path getOutputFile() {
+		return null;
+	}
+
+	/**
+	 * Algorithms that pass their results via a {@link ResultChannel} return {@code true} here. The channel of the last
+	 * run is then available in {@link #parseResults()} via {@link #getResultChannel()}.
+	 */
+	public boolean usesResultChannel() {
+		return false;
+	}
+
+	/**
+	 * @return the result channel of the last run or {@code null} if there is none
+	 */
+	public ResultChannelReader getResultChannel() {
+		return resultChannel;
+	}
+
+	void setResultChannel(ResultChannelReader resultChannel) {
+		this.resultChannel = resultChannel;
+	}
+
+	/**
+	 * Returns a command that starts a process like this algorithm, but does no work. It is used to calibrate the time
+	 * that is needed to start and stop a process. Algorithms that, for instance, start a JVM should override this
+	 * method. Algorithms with the same calibration command share the calibration.
+	 *
+	 * @return the command or an empty list if the algorithm does not start a process
+	 */
+	public List<String> getCalibrationCommand() {
+		return Collections.singletonList("true");
+	}
+
 	public abstract String getName();
 
 	public abstract String getParameterSettings();
@@ -48,6 +93,21 @@ public abstract class Algorithm<R> implements IOutputReader {
 		return commandBuilder.toString();
 	}
 
+	/**
+	 * Algorithms whose results only depend on their input, their parameter settings, and the random seed can return
+	 * {@code true} here. Their results may then be memoized instead of running them again.
+	 */
+	public boolean isDeterministic() {
+		return false;
+	}
+
+	/**
+	 * @return the version of the implementation. Memoized results of other versions are discarded.
+	 */
+	public String getVersion() {
+		return "";
+	}
+
 	public String getFullName() {
 		return getName() + "_" + getParameterSettings();
 	}
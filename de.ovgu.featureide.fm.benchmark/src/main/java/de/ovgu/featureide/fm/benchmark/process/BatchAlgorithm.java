@@ -0,0 +1,57 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.util.List;
+
+/**
+ * An algorithm that processes several inputs (items) in one process. The command elements are followed by the
+ * {@link #getItemArguments() arguments} of all items. The process must print the line {@value #ITEM_START} before and
+ * the line {@value #ITEM_END} after it processes an item. Both lines may be followed by a timestamp in nanoseconds
+ * (e.g., "@@start 1234"), which is then used to compute the time of the item. Only the output between these lines is
+ * passed to {@link #readOutput(String)}.
+ * <p>
+ * The benchmark adapts this algorithm for all items before the process is started. Therefore, state that is set while
+ * adapting the algorithm for one item is overwritten by the next items. All item-specific input must be contained in
+ * {@link #getItemArguments()}. State that {@link #parseResults()} needs per item must be derived from the item index
+ * passed to {@link #startItem(int)}.
+ * <p>
+ * Errors are attributed to the item that is running when the error output is counted. As standard output and
+ * standard error are read by different threads, errors printed right before or after an item marker may be
+ * attributed to a neighboring item.
+ */
+public abstract class BatchAlgorithm<R> extends Algorithm<R> {
+
+	public static final String ITEM_START = "@@start";
+	public static final String ITEM_END = "@@end";
+
+	protected int batchSize = -1;
+
+	/**
+	 * Is called once per item while the benchmark adapts this algorithm for the item.
+	 *
+	 * @return the arguments that describe the current input of this algorithm
+	 */
+	public abstract List<String> getItemArguments() throws Exception;
+
+	/**
+	 * Called before the output of the next item is read. Implementations reset all state that is used by
+	 * {@link #parseResults()} here.
+	 *
+	 * @param item the index of the item in the order in which {@link #getItemArguments()} was called for the batch
+	 */
+	public void startItem(int item) throws Exception {
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the maximum number of items per process.
+	 *
+	 * @param batchSize the number of items, 0 for no limit, or -1 to use the configured default
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
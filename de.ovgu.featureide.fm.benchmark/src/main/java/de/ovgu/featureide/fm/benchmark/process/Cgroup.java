@@ -0,0 +1,184 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Control group (cgroup v2) of a single run. The run is started within the group, such that all of its descendants
+ * are limited, measured, and killed together.
+ */
+public class Cgroup {
+
+	private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+	private static final long CPU_PERIOD = 100_000L;
+	private static final long REMOVE_TIMEOUT = 1000L;
+
+	private final Path path;
+
+	/**
+	 * Prepares the given group as parent for the groups of all runs. Processes within the group are moved into a
+	 * child group "harness", as controllers can only be enabled for groups without processes.
+	 *
+	 * @param cgroupPath the parent group or an empty string for the group of the current process
+	 * @return the parent group
+	 * @throws IOException if cgroup v2 is not available or the group cannot be modified
+	 */
+	public static Path setup(String cgroupPath) throws IOException {
+		if (!Files.isReadable(CGROUP_ROOT.resolve("cgroup.controllers"))) {
+			throw new IOException("cgroup v2 is not available");
+		}
+		final Path root = cgroupPath.isEmpty() ? getOwnGroup() : Paths.get(cgroupPath);
+		final List<String> processes = readLines(root.resolve("cgroup.procs"));
+		if (!processes.isEmpty()) {
+			final Path harness = root.resolve("harness");
+			if (!Files.isDirectory(harness)) {
+				Files.createDirectory(harness);
+			}
+			for (String pid : processes) {
+				try {
+					write(harness.resolve("cgroup.procs"), pid);
+				} catch (IOException e) {
+					// process terminated
+				}
+			}
+		}
+		write(root.resolve("cgroup.subtree_control"), "+memory +cpu +pids");
+		return root;
+	}
+
+	private static Path getOwnGroup() throws IOException {
+		for (String line : readLines(Paths.get("/proc/self/cgroup"))) {
+			if (line.startsWith("0::")) {
+				return CGROUP_ROOT.resolve(line.substring(4));
+			}
+		}
+		throw new IOException("Process is not in a cgroup v2 hierarchy");
+	}
+
+	/**
+	 * Creates a new group with the given limits.
+	 */
+	public Cgroup(Path path, ResourceLimits limits) throws IOException {
+		this.path = path;
+		if (Files.isDirectory(path)) {
+			remove();
+		}
+		Files.createDirectory(path);
+		if (limits.getMemoryMax() > 0) {
+			write(path.resolve("memory.max"), Long.toString(limits.getMemoryMax()));
+			try {
+				write(path.resolve("memory.swap.max"), "0");
+			} catch (IOException e) {
+				// no swap accounting
+			}
+		}
+		if (limits.getCpuMax() > 0) {
+			write(path.resolve("cpu.max"), Math.round(limits.getCpuMax() * CPU_PERIOD) + " " + CPU_PERIOD);
+		}
+		if (limits.getPidsMax() > 0) {
+			write(path.resolve("pids.max"), Long.toString(limits.getPidsMax()));
+		}
+	}
+
+	/**
+	 * @return a command that moves itself into this group before executing the given command
+	 */
+	public List<String> wrap(List<String> command) {
+		final List<String> wrappedCommand = new ArrayList<>(command.size() + 4);
+		wrappedCommand.add("sh");
+		wrappedCommand.add("-c");
+		wrappedCommand.add("echo $$ > \"$0\" && exec \"$@\"");
+		wrappedCommand.add(path.resolve("cgroup.procs").toString());
+		wrappedCommand.addAll(command);
+		return wrappedCommand;
+	}
+
+	/**
+	 * Kills all processes in this group.
+	 */
+	public void kill() {
+		try {
+			write(path.resolve("cgroup.kill"), "1");
+		} catch (IOException e) {
+			// cgroup.kill requires Linux 5.14
+			try {
+				final List<String> processes = readLines(path.resolve("cgroup.procs"));
+				if (!processes.isEmpty()) {
+					final List<String> command = new ArrayList<>(processes.size() + 2);
+					command.add("kill");
+					command.add("-KILL");
+					command.addAll(processes);
+					new ProcessBuilder(command).start().waitFor();
+				}
+			} catch (IOException e1) {
+			} catch (InterruptedException e1) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Sets the peak memory and CPU times of the group. If a process of the group was killed because of the memory
+	 * limit, the result is marked as {@link Result#isOutOfMemory() out of memory}.
+	 */
+	public void readStatistics(Result<?> result) {
+		try {
+			result.setPeakMemory(Long.parseLong(readLines(path.resolve("memory.peak")).get(0).trim()));
+		} catch (IOException | RuntimeException e) {
+			// memory.peak requires Linux 5.19
+		}
+		try {
+			for (String line : readLines(path.resolve("cpu.stat"))) {
+				final String[] fields = line.split(" ");
+				if (fields[0].equals("user_usec")) {
+					result.setUserTime(Long.parseLong(fields[1]) / 1000);
+				} else if (fields[0].equals("system_usec")) {
+					result.setSystemTime(Long.parseLong(fields[1]) / 1000);
+				}
+			}
+			for (String line : readLines(path.resolve("memory.events"))) {
+				final String[] fields = line.split(" ");
+				if (fields[0].equals("oom_kill") && (Long.parseLong(fields[1]) > 0)) {
+					result.setOutOfMemory(true);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+		}
+	}
+
+	/**
+	 * Kills all remaining processes and removes this group.
+	 */
+	public void remove() throws IOException {
+		kill();
+		final long deadline = System.currentTimeMillis() + REMOVE_TIMEOUT;
+		while (!readLines(path.resolve("cgroup.procs")).isEmpty() && (System.currentTimeMillis() < deadline)) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		Files.delete(path);
+	}
+
+	private static List<String> readLines(Path file) throws IOException {
+		try {
+			return Files.readAllLines(file, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return new ArrayList<>();
+		}
+	}
+
+	private static void write(Path file, String value) throws IOException {
+		Files.write(file, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
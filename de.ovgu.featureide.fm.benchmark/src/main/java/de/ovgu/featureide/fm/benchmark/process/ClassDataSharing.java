@@ -0,0 +1,193 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.sk.utils.Logger;
+
+/**
+ * Application class-data sharing (AppCDS) archives for algorithms that start a JVM. For each distinct JVM command
+ * (i.e., the command up to the main class or jar), an unmeasured training run creates an archive of all loaded
+ * classes (requires Java 13). A second unmeasured run verifies that the JVM can use the archive with
+ * {@code -Xshare:on}. All further runs with this JVM command use the archive with {@code -Xshare:on}, such that they
+ * either use the archive or fail. If training or verification fails (e.g., because of an older JVM or directories in
+ * the class path), the command is used unchanged.
+ * <p>
+ * Both unmeasured runs are started by the process runner of the run that needs the archive, i.e., with the pinning,
+ * limits, and cgroup of its slot.
+ */
+public class ClassDataSharing {
+
+	/**
+	 * Options that are used for the training run.
+	 */
+	private static final List<String> TRAINING_PROFILE = Arrays.asList("-Xshare:auto", "-Xlog:cds=off",
+			"-Xlog:cds+dynamic=off");
+
+	/**
+	 * Options that are used for the verification run and all runs with the archive.
+	 */
+	private static final List<String> PROFILE = Arrays.asList("-Xshare:on", "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+
+	private final Path archivePath;
+	private final Map<String, FutureTask<Path>> archives = new ConcurrentHashMap<>();
+
+	/**
+	 * @param archivePath the directory for the archives
+	 */
+	public ClassDataSharing(Path archivePath) {
+		this.archivePath = archivePath;
+	}
+
+	/**
+	 * Returns the given command with the options to use the archive of its JVM command. If there is no archive yet,
+	 * the command is run to create and verify it.
+	 *
+	 * @param command the command of a run
+	 * @param environment the environment of the run
+	 * @param processRunner the process runner of the run
+	 * @return the command with the options or the given command, if it does not start a JVM or no archive can be
+	 *         created
+	 */
+	public List<String> getCommand(List<String> command, Map<String, String> environment,
+			ProcessRunner<?, ?, ?> processRunner) {
+		final int jvmCommandEnd = getJvmCommandEnd(command);
+		if (jvmCommandEnd < 0) {
+			return command;
+		}
+		final List<String> jvmCommand = command.subList(0, jvmCommandEnd);
+		final String key;
+		try {
+			key = hash(String.join("\0", jvmCommand));
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+			return command;
+		}
+		final FutureTask<Path> newTask = new FutureTask<>(() -> train(command, environment, key, processRunner));
+		final FutureTask<Path> task = archives.putIfAbsent(key, newTask);
+		final FutureTask<Path> archiveTask = (task != null) ? task : newTask;
+		archiveTask.run();
+		final Path archive;
+		try {
+			archive = archiveTask.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return command;
+		} catch (ExecutionException e) {
+			Logger.getInstance().logError(e.getCause());
+			return command;
+		}
+		return (archive == null) ? command : addOptions(command, PROFILE, "-XX:SharedArchiveFile=" + archive);
+	}
+
+	private Path train(List<String> command, Map<String, String> environment, String key,
+			ProcessRunner<?, ?, ?> processRunner) {
+		final Path archive = archivePath.resolve(key + ".jsa").toAbsolutePath();
+		Path resultChannelFile = null;
+		try {
+			Files.createDirectories(archivePath);
+			Files.deleteIfExists(archive);
+			final Map<String, String> trainingEnvironment = new HashMap<>(environment);
+			if (environment.containsKey(ResultChannel.ENVIRONMENT_VARIABLE)) {
+				resultChannelFile = Files.createTempFile(archivePath, "result", ".bin");
+				trainingEnvironment.put(ResultChannel.ENVIRONMENT_VARIABLE, resultChannelFile.toString());
+			}
+			if (processRunner.runUnmeasured(
+					addOptions(command, TRAINING_PROFILE, "-XX:ArchiveClassesAtExit=" + archive), trainingEnvironment)
+					&& Files.isRegularFile(archive)) {
+				if (processRunner.runUnmeasured(addOptions(command, PROFILE, "-XX:SharedArchiveFile=" + archive),
+						trainingEnvironment)) {
+					Logger.getInstance().logInfo("Created class data sharing archive " + archive.getFileName(), 1);
+					return archive;
+				}
+				Files.deleteIfExists(archive);
+			}
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (resultChannelFile != null) {
+				try {
+					Files.deleteIfExists(resultChannelFile);
+				} catch (IOException e) {
+				}
+			}
+		}
+		Logger.getInstance().logInfo("Class data sharing is not used for " + String.join(" ", command), 1);
+		return null;
+	}
+
+	private static List<String> addOptions(List<String> command, List<String> profile, String archiveOption) {
+		final List<String> newCommand = new ArrayList<>(command.size() + profile.size() + 1);
+		newCommand.add(command.get(0));
+		newCommand.addAll(profile);
+		newCommand.add(archiveOption);
+		newCommand.addAll(command.subList(1, command.size()));
+		return newCommand;
+	}
+
+	/**
+	 * @return the index after the main class or jar or -1 if the command does not start a JVM or already sets
+	 *         class data sharing options
+	 */
+	private static int getJvmCommandEnd(List<String> command) {
+		if (command.isEmpty()) {
+			return -1;
+		}
+		final Path executablePath = Paths.get(command.get(0)).getFileName();
+		final String executable = (executablePath != null) ? executablePath.toString() : "";
+		if (!executable.equals("java") && !executable.equals("java.exe")) {
+			return -1;
+		}
+		for (int i = 1; i < command.size(); i++) {
+			final String element = command.get(i);
+			switch (element) {
+			case "-cp":
+			case "-classpath":
+			case "--class-path":
+				i++;
+				break;
+			case "-jar":
+				return Math.min(i + 2, command.size());
+			default:
+				if (element.startsWith("-Xshare") || element.startsWith("-XX:SharedArchiveFile")
+						|| element.startsWith("-XX:ArchiveClassesAtExit")) {
+					return -1;
+				} else if (!element.startsWith("-")) {
+					return i + 1;
+				}
+				break;
+			}
+		}
+		return -1;
+	}
+
+	private static String hash(String value) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest(value.getBytes(StandardCharsets.UTF_8))) {
+			sb.append(String.format("%02x", b & 0xff));
+		}
+		return sb.substring(0, 16);
+	}
+
+}
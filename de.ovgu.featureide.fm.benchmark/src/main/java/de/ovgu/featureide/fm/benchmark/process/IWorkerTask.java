@@ -0,0 +1,11 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+/**
+ * Entry point of an algorithm that is executed inside a {@link Worker} JVM.
+ * Implementing classes must provide a public no-argument constructor.
+ */
+public interface IWorkerTask {
+
+	void run(String[] args) throws Exception;
+
+}
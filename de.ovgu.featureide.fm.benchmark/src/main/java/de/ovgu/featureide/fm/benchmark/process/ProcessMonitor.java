@@ -0,0 +1,232 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import de.ovgu.featureide.fm.benchmark.process.ProcessStatistics.ProcessSample;
+
+/**
+ * Periodically samples the resource usage of all registered processes and their descendants from the /proc file
+ * system. A single background thread is used for all processes, including the first sample of a newly registered
+ * process.
+ */
+public class ProcessMonitor implements AutoCloseable {
+
+	private static final Path PROC = Paths.get("/proc");
+	private static final long CLOCK_TICKS = readClockTicks();
+
+	private final List<ProcessStatistics> registeredProcesses = new ArrayList<>();
+	private final ScheduledExecutorService sampler;
+
+	public ProcessMonitor(long interval) {
+		sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread thread = new Thread(r, "ProcessMonitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sample, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public static boolean isSupported() {
+		return Files.isDirectory(PROC.resolve("self"));
+	}
+
+	/**
+	 * Starts sampling the given process.
+	 *
+	 * @return the statistics that are updated until {@link #unregister(ProcessStatistics)} is called or {@code null}
+	 *         if the process id cannot be determined
+	 */
+	public ProcessStatistics register(Process process) {
+		final long pid = getPid(process);
+		if (pid < 0) {
+			return null;
+		}
+		final ProcessStatistics statistics = new ProcessStatistics(pid);
+		synchronized (registeredProcesses) {
+			registeredProcesses.add(statistics);
+		}
+		sampler.execute(() -> sample(statistics));
+		return statistics;
+	}
+
+	public void unregister(ProcessStatistics statistics) {
+		if (statistics != null) {
+			synchronized (registeredProcesses) {
+				registeredProcesses.remove(statistics);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		sampler.shutdownNow();
+	}
+
+	private void sample() {
+		final ProcessStatistics[] processes;
+		synchronized (registeredProcesses) {
+			processes = registeredProcesses.toArray(new ProcessStatistics[0]);
+		}
+		for (ProcessStatistics statistics : processes) {
+			sample(statistics);
+		}
+	}
+
+	private void sample(ProcessStatistics statistics) {
+		final List<Long> pids = new ArrayList<>();
+		collectProcessTree(statistics.getPid(), pids);
+		long memory = 0;
+		long threads = 0;
+		long userTime = 0;
+		long systemTime = 0;
+		synchronized (statistics) {
+			for (Long pid : pids) {
+				final Path processPath = PROC.resolve(pid.toString());
+				try {
+					final ProcessSample sample = statistics.getProcessSample(pid);
+					for (String line : Files.readAllLines(processPath.resolve("status"))) {
+						if (line.startsWith("VmRSS:")) {
+							memory += parseValue(line) * 1024;
+						} else if (line.startsWith("Threads:")) {
+							threads += parseValue(line);
+						} else if (line.startsWith("voluntary_ctxt_switches:")) {
+							sample.voluntaryContextSwitches = parseValue(line);
+						} else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+							sample.involuntaryContextSwitches = parseValue(line);
+						}
+					}
+					final String stat = new String(Files.readAllBytes(processPath.resolve("stat")));
+					final String[] statFields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+					// own times (utime, stime) plus the times of all terminated children it waited for (cutime, cstime)
+					userTime += Long.parseLong(statFields[11]) + Long.parseLong(statFields[13]);
+					systemTime += Long.parseLong(statFields[12]) + Long.parseLong(statFields[14]);
+				} catch (IOException | RuntimeException e) {
+					// process terminated
+				}
+			}
+			statistics.updatePeaks(memory, threads);
+			statistics.updateTimes((userTime * 1000) / CLOCK_TICKS, (systemTime * 1000) / CLOCK_TICKS);
+		}
+	}
+
+	/**
+	 * Adds the given process and all of its descendants to the given list.
+	 */
+	static void collectProcessTree(long pid, List<Long> pids) {
+		pids.add(pid);
+		for (Long child : getChildren(pid)) {
+			collectProcessTree(child, pids);
+		}
+	}
+
+	private static List<Long> getChildren(long pid) {
+		final List<Long> children = new ArrayList<>();
+		try (DirectoryStream<Path> tasks = Files.newDirectoryStream(PROC.resolve(Long.toString(pid)).resolve("task"))) {
+			for (Path task : tasks) {
+				final String taskChildren = new String(Files.readAllBytes(task.resolve("children"))).trim();
+				if (!taskChildren.isEmpty()) {
+					for (String child : taskChildren.split(" ")) {
+						children.add(Long.parseLong(child));
+					}
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// kernel without CONFIG_PROC_CHILDREN
+			return getChildrenFromParents(pid);
+		} catch (IOException | RuntimeException e) {
+			// process terminated
+		}
+		return children;
+	}
+
+	private static List<Long> getChildrenFromParents(long pid) {
+		final List<Long> children = new ArrayList<>();
+		if (!Files.isDirectory(PROC.resolve(Long.toString(pid)))) {
+			return children;
+		}
+		try (DirectoryStream<Path> processes = Files.newDirectoryStream(PROC, "[0-9]*")) {
+			for (Path process : processes) {
+				try {
+					final String stat = new String(Files.readAllBytes(process.resolve("stat")));
+					final String[] statFields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+					if (Long.parseLong(statFields[1]) == pid) {
+						children.add(Long.parseLong(process.getFileName().toString()));
+					}
+				} catch (IOException | RuntimeException e) {
+					// process terminated
+				}
+			}
+		} catch (IOException e) {
+		}
+		return children;
+	}
+
+	private static long parseValue(String line) {
+		final String[] fields = line.substring(line.indexOf(':') + 1).trim().split("\\s+");
+		return Long.parseLong(fields[0]);
+	}
+
+	/**
+	 * Kills the given process and all of its descendants. Descendants are collected before any process is killed, as
+	 * they are re-parented otherwise.
+	 */
+	public static void killProcessTree(Process process) {
+		final long pid = getPid(process);
+		if (pid > 0) {
+			final List<Long> pids = new ArrayList<>();
+			collectProcessTree(pid, pids);
+			final List<String> command = new ArrayList<>(pids.size() + 2);
+			command.add("kill");
+			command.add("-KILL");
+			for (Long treePid : pids) {
+				command.add(treePid.toString());
+			}
+			try {
+				new ProcessBuilder(command).redirectErrorStream(true).start().waitFor();
+			} catch (IOException e) {
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		process.destroyForcibly();
+	}
+
+	public static long getPid(Process process) {
+		try {
+			return (Long) Process.class.getMethod("pid").invoke(process);
+		} catch (Exception e) {
+		}
+		try {
+			final Field pidField = process.getClass().getDeclaredField("pid");
+			pidField.setAccessible(true);
+			return pidField.getInt(process);
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private static long readClockTicks() {
+		try {
+			final Process process = new ProcessBuilder("getconf", "CLK_TCK").start();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				return Long.parseLong(reader.readLine().trim());
+			}
+		} catch (Exception e) {
+			return 100;
+		}
+	}
+
+}
@@ -1,60 +1,163 @@
 package de.ovgu.featureide.fm.benchmark.process;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
 
 import org.sk.utils.Logger;
 
+import de.ovgu.featureide.fm.benchmark.process.WorkerConnection.Invocation;
 import de.ovgu.featureide.fm.benchmark.streams.ErrStreamCollector;
-import de.ovgu.featureide.fm.benchmark.streams.ErrStreamReader;
+import de.ovgu.featureide.fm.benchmark.streams.IOutputReader;
 import de.ovgu.featureide.fm.benchmark.streams.OutStreamReader;
 import de.ovgu.featureide.fm.benchmark.streams.StreamRedirector;
+import de.ovgu.featureide.fm.benchmark.util.Phase;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder;
+import de.ovgu.featureide.fm.benchmark.util.PhaseRecorder.Timer;
 
 public class ProcessRunner<R, A extends Algorithm<R>, K extends Result<R>> {
 
+	private static final long STREAM_CLOSE_TIMEOUT = 1000L;
+	private static final AtomicInteger CGROUP_COUNTER = new AtomicInteger();
+
 	private long timeout = Long.MAX_VALUE;
+	private String cpuSet = null;
+	private int warmupIterations = 0;
+	private ProcessMonitor processMonitor = null;
+	private boolean logOutput = true;
+	private int errorHeadLines = ErrStreamCollector.DEFAULT_HEAD_LINES;
+	private int errorTailLines = ErrStreamCollector.DEFAULT_TAIL_LINES;
+	private Pattern errorPattern = null;
+	private Pattern ignoredErrorPattern = null;
+	private ExecutorService streamExecutor = null;
+	private ResourceLimits resourceLimits = null;
+	private Path cgroupRoot = null;
+	private Path tempPath = null;
+	private ClassDataSharing classDataSharing = null;
+
+	private final Map<List<String>, WorkerConnection> workers = new HashMap<>();
+	private final PhaseRecorder phaseRecorder = PhaseRecorder.getInstance();
 
 	public void run(A algorithm, K result) {
 		boolean terminatedInTime = false;
 		long startTime = 0, endTime = 0;
+		Path resultChannelFile = null;
 		try {
+			Timer timer = phaseRecorder.start(Phase.GC);
 			System.gc();
+			result.setPhaseTime(Phase.GC, timer.stop());
+			timer = phaseRecorder.start(Phase.PRE_PROCESS);
 			algorithm.preProcess();
+			result.setPhaseTime(Phase.PRE_PROCESS, timer.stop());
 
 			Logger.getInstance().logInfo(algorithm.getCommand(), 1);
 
 			final List<String> command = algorithm.getCommandElements();
-			if (!command.isEmpty()) {
-				final ProcessBuilder processBuilder = new ProcessBuilder(command);
+			if (algorithm instanceof WorkerAlgorithm) {
+				timer = phaseRecorder.start(Phase.RUN_PROCESS);
+				terminatedInTime = runInWorker((WorkerAlgorithm<?>) algorithm, result);
+				result.setPhaseTime(Phase.RUN_PROCESS, timer.stop());
+			} else if (!command.isEmpty()) {
+				final ProcessBuilder processBuilder = new ProcessBuilder();
+				final Path outputFile = algorithm.getOutputFile();
+				if (outputFile != null) {
+					processBuilder.redirectOutput(outputFile.toFile());
+				}
+				if (algorithm.usesResultChannel()) {
+					resultChannelFile = (tempPath != null) ? Files.createTempFile(tempPath, "result", ".bin")
+							: Files.createTempFile("result", ".bin");
+					processBuilder.environment().put(ResultChannel.ENVIRONMENT_VARIABLE, resultChannelFile.toString());
+				}
+				List<String> processCommand = command;
+				if (classDataSharing != null) {
+					processCommand = classDataSharing.getCommand(command, processBuilder.environment(), this);
+					result.setClassDataSharing(processCommand != command);
+				}
+				processBuilder.command(getLimitedCommand(getPinnedCommand(processCommand)));
 				Process process = null;
 
-				final ErrStreamCollector errStreamCollector = new ErrStreamCollector();
-				final StreamRedirector errRedirector = new StreamRedirector(
-						Arrays.asList(new ErrStreamReader(), errStreamCollector));
-				final StreamRedirector outRedirector = new StreamRedirector(
-						Arrays.asList(new OutStreamReader(), algorithm));
-				final Thread outThread = new Thread(outRedirector);
-				final Thread errThread = new Thread(errRedirector);
+				final ErrStreamCollector errStreamCollector = createErrStreamCollector();
+				final List<Future<?>> drainers = new ArrayList<>(2);
+				ProcessStatistics statistics = null;
+				Cgroup cgroup = null;
 				try {
+					timer = phaseRecorder.start(Phase.START_PROCESS);
+					cgroup = createCgroup(processBuilder);
 					startTime = System.nanoTime();
 					process = processBuilder.start();
+					if (processMonitor != null) {
+						statistics = processMonitor.register(process);
+					}
 
-					outRedirector.setInputStream(process.getInputStream());
-					errRedirector.setInputStream(process.getErrorStream());
-					outThread.start();
-					errThread.start();
+					final ExecutorService streamExecutor = getStreamExecutor();
+					if (outputFile == null) {
+						drainers.add(streamExecutor
+								.submit(getRedirector(process.getInputStream(), getOutputReaders(algorithm))));
+					}
+					drainers.add(streamExecutor
+							.submit(getErrorRedirector(process.getErrorStream(), errStreamCollector)));
+					result.setPhaseTime(Phase.START_PROCESS, timer.stop());
 
+					timer = phaseRecorder.start(Phase.RUN_PROCESS);
 					terminatedInTime = process.waitFor(timeout, TimeUnit.MILLISECONDS);
 					endTime = System.nanoTime();
+					result.setPhaseTime(Phase.RUN_PROCESS, timer.stop());
+					if (!terminatedInTime) {
+						if (cgroup != null) {
+							cgroup.kill();
+						} else {
+							ProcessMonitor.killProcessTree(process);
+						}
+					}
+					timer = phaseRecorder.start(Phase.DRAIN_STREAMS);
+					awaitStreams(process, drainers);
+					result.setPhaseTime(Phase.DRAIN_STREAMS, timer.stop());
 					result.setTerminatedInTime(terminatedInTime);
-					result.setNoError(errStreamCollector.getErrList().isEmpty());
+					result.setNoError(!errStreamCollector.hasErrors());
 					result.setTime((endTime - startTime) / 1_000_000L);
+					result.setNanoTime(endTime - startTime);
 				} finally {
+					logErrors(errStreamCollector);
 					if (process != null) {
 						process.destroyForcibly();
 					}
+					for (Future<?> drainer : drainers) {
+						drainer.cancel(true);
+					}
+					if (statistics != null) {
+						processMonitor.unregister(statistics);
+						setStatistics(result, statistics);
+					}
+					if (cgroup != null) {
+						cgroup.readStatistics(result);
+						try {
+							cgroup.remove();
+						} catch (IOException e) {
+							Logger.getInstance().logError(e, 1);
+						}
+					}
+					if (result.isOutOfMemory()) {
+						Logger.getInstance().logError("Killed because of the memory limit", 1);
+						result.setNoError(false);
+					}
 				}
 			} else {
 				result.setTerminatedInTime(false);
@@ -68,7 +171,14 @@ public class ProcessRunner<R, A extends Algorithm<R>, K extends Result<R>> {
 			result.setTime(Result.INVALID_TIME);
 		}
 		try {
+			final Timer timer = phaseRecorder.start(Phase.PARSE_RESULTS);
+			if (resultChannelFile != null) {
+				final ResultChannelReader resultChannel = ResultChannelReader.read(resultChannelFile);
+				resultChannel.getTimes().forEach(result::setInternalTime);
+				algorithm.setResultChannel(resultChannel);
+			}
 			setResult(algorithm, result);
+			result.setPhaseTime(Phase.PARSE_RESULTS, timer.stop());
 		} catch (Exception e) {
 			Logger.getInstance().logError(e, 1);
 			if (terminatedInTime) {
@@ -76,10 +186,608 @@ public class ProcessRunner<R, A extends Algorithm<R>, K extends Result<R>> {
 			}
 		}
 		try {
+			final Timer timer = phaseRecorder.start(Phase.POST_PROCESS);
 			algorithm.postProcess();
+			result.setPhaseTime(Phase.POST_PROCESS, timer.stop());
 		} catch (Exception e) {
 			Logger.getInstance().logError(e);
 		}
+		if (resultChannelFile != null) {
+			algorithm.setResultChannel(null);
+			try {
+				Files.deleteIfExists(resultChannelFile);
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+		}
+	}
+
+	/**
+	 * Runs a {@link BatchAlgorithm} for several items in one process. If an item exceeds the timeout or the process
+	 * terminates while it processes an item, the process is killed and restarted with the next item. Resource
+	 * statistics are measured per process and set for all of its items. The error state of an item is approximate, as
+	 * error output that is printed near an item marker may be counted for a neighboring item.
+	 *
+	 * @param itemArguments the arguments of each item
+	 * @param results the result of each item
+	 * @param restartCondition is called with the index of the next item before the process is restarted and
+	 *        returns whether the remaining items should be processed
+	 * @return the index of the first item that was not processed
+	 */
+	@SuppressWarnings("unchecked")
+	public int runBatch(A algorithm, List<List<String>> itemArguments, List<K> results,
+			IntPredicate restartCondition) {
+		try {
+			Timer timer = phaseRecorder.start(Phase.GC);
+			System.gc();
+			results.get(0).setPhaseTime(Phase.GC, timer.stop());
+			timer = phaseRecorder.start(Phase.PRE_PROCESS);
+			algorithm.preProcess();
+			results.get(0).setPhaseTime(Phase.PRE_PROCESS, timer.stop());
+		} catch (Exception e) {
+			Logger.getInstance().logError(e, 1);
+			return 0;
+		}
+		int nextItem = 0;
+		while (nextItem < results.size()) {
+			final int firstItem = nextItem;
+			if ((firstItem > 0) && !restartCondition.test(firstItem)) {
+				break;
+			}
+			nextItem = runBatchProcess((BatchAlgorithm<R>) algorithm, itemArguments, results, firstItem);
+			if (nextItem == firstItem) {
+				Logger.getInstance().logError("Process terminated without processing an item", 1);
+				break;
+			}
+		}
+		try {
+			final Timer timer = phaseRecorder.start(Phase.POST_PROCESS);
+			algorithm.postProcess();
+			results.get(results.size() - 1).setPhaseTime(Phase.POST_PROCESS, timer.stop());
+		} catch (Exception e) {
+			Logger.getInstance().logError(e);
+		}
+		return nextItem;
+	}
+
+	/**
+	 * Starts one process for all items beginning with the given one.
+	 *
+	 * @return the index of the first item that was not processed
+	 */
+	private int runBatchProcess(BatchAlgorithm<R> algorithm, List<List<String>> itemArguments, List<K> results,
+			int firstItem) {
+		final List<String> command = new ArrayList<>(algorithm.getCommandElements());
+		for (List<String> arguments : itemArguments.subList(firstItem, itemArguments.size())) {
+			command.addAll(arguments);
+		}
+		Logger.getInstance().logInfo(algorithm.getCommand() + "[" + (results.size() - firstItem) + " items]", 1);
+
+		final ProcessBuilder processBuilder = new ProcessBuilder(getLimitedCommand(getPinnedCommand(command)));
+		final ErrStreamCollector errStreamCollector = createErrStreamCollector();
+		final BatchReader batchReader = new BatchReader(algorithm, results, firstItem, errStreamCollector);
+		final List<Future<?>> drainers = new ArrayList<>(2);
+		final K firstResult = results.get(firstItem);
+		Process process = null;
+		ProcessStatistics statistics = null;
+		Cgroup cgroup = null;
+		boolean terminatedInTime = false;
+		try {
+			Timer timer = phaseRecorder.start(Phase.START_PROCESS);
+			cgroup = createCgroup(processBuilder);
+			batchReader.start();
+			process = processBuilder.start();
+			if (processMonitor != null) {
+				statistics = processMonitor.register(process);
+			}
+
+			final List<IOutputReader> outputReaders = new ArrayList<>(2);
+			if (logOutput) {
+				outputReaders.add(new OutStreamReader());
+			}
+			outputReaders.add(batchReader);
+			final ExecutorService streamExecutor = getStreamExecutor();
+			drainers.add(streamExecutor.submit(getRedirector(process.getInputStream(), outputReaders)));
+			drainers.add(streamExecutor.submit(getErrorRedirector(process.getErrorStream(), errStreamCollector)));
+			firstResult.setPhaseTime(Phase.START_PROCESS, timer.stop());
+
+			terminatedInTime = waitForItems(process, batchReader);
+			if (!terminatedInTime) {
+				if (cgroup != null) {
+					cgroup.kill();
+				} else {
+					ProcessMonitor.killProcessTree(process);
+				}
+			}
+			timer = phaseRecorder.start(Phase.DRAIN_STREAMS);
+			awaitStreams(process, drainers);
+			firstResult.setPhaseTime(Phase.DRAIN_STREAMS, timer.stop());
+		} catch (Exception e) {
+			Logger.getInstance().logError(e, 1);
+		} finally {
+			logErrors(errStreamCollector);
+			if (process != null) {
+				process.destroyForcibly();
+			}
+			for (Future<?> drainer : drainers) {
+				drainer.cancel(true);
+			}
+		}
+
+		final int nextItem = batchReader.finish(terminatedInTime);
+		final List<K> processResults = results.subList(firstItem, nextItem);
+		if (statistics != null) {
+			processMonitor.unregister(statistics);
+			for (K result : processResults) {
+				setStatistics(result, statistics);
+			}
+		}
+		if (cgroup != null) {
+			final Result<R> cgroupResult = new Result<>();
+			cgroup.readStatistics(cgroupResult);
+			try {
+				cgroup.remove();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e, 1);
+			}
+			for (K result : processResults) {
+				if (cgroupResult.getPeakMemory() >= 0) {
+					result.setPeakMemory(cgroupResult.getPeakMemory());
+				}
+				if (cgroupResult.getUserTime() >= 0) {
+					result.setUserTime(cgroupResult.getUserTime());
+					result.setSystemTime(cgroupResult.getSystemTime());
+				}
+			}
+			if (cgroupResult.isOutOfMemory() && (batchReader.getInterruptedItem() >= 0)) {
+				final K result = results.get(batchReader.getInterruptedItem());
+				Logger.getInstance().logError("Killed because of the memory limit", 1);
+				result.setOutOfMemory(true);
+				result.setNoError(false);
+			}
+		}
+		return nextItem;
+	}
+
+	/**
+	 * Waits until the process terminates or the current item exceeds the timeout.
+	 *
+	 * @return whether the process terminated in time
+	 */
+	private boolean waitForItems(Process process, BatchReader batchReader) throws InterruptedException {
+		final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+		while (true) {
+			final long remainingTime = timeoutNanos - (System.nanoTime() - batchReader.getLastEventTime());
+			if (remainingTime <= 0) {
+				return false;
+			}
+			if (process.waitFor(remainingTime, TimeUnit.NANOSECONDS)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Assigns the output of a batch process to the results of its items. Error lines are counted for the item that
+	 * is processed when they are read.
+	 */
+	private class BatchReader implements IOutputReader {
+
+		private final BatchAlgorithm<R> algorithm;
+		private final List<K> results;
+		private final ErrStreamCollector errStreamCollector;
+
+		private int nextItem;
+		private int currentItem = -1;
+		private int interruptedItem = -1;
+		private boolean itemFailed;
+		private long itemErrorCount;
+		private long itemStartTime;
+		private long itemStartTimestamp;
+		private long lastEventTime;
+
+		private BatchReader(BatchAlgorithm<R> algorithm, List<K> results, int firstItem,
+				ErrStreamCollector errStreamCollector) {
+			this.algorithm = algorithm;
+			this.results = results;
+			this.errStreamCollector = errStreamCollector;
+			nextItem = firstItem;
+		}
+
+		private synchronized void start() {
+			lastEventTime = System.nanoTime();
+		}
+
+		private synchronized long getLastEventTime() {
+			return lastEventTime;
+		}
+
+		private synchronized int getInterruptedItem() {
+			return interruptedItem;
+		}
+
+		@Override
+		public synchronized void readOutput(String line) throws Exception {
+			if (isMarker(line, BatchAlgorithm.ITEM_START)) {
+				if ((currentItem < 0) && (nextItem < results.size())) {
+					lastEventTime = System.nanoTime();
+					currentItem = nextItem;
+					itemStartTime = lastEventTime;
+					itemStartTimestamp = getTimestamp(line, BatchAlgorithm.ITEM_START);
+					itemErrorCount = errStreamCollector.getErrorCount();
+					itemFailed = false;
+					try {
+						algorithm.startItem(currentItem);
+					} catch (Exception e) {
+						Logger.getInstance().logError(e, 1);
+						itemFailed = true;
+					}
+				}
+			} else if (isMarker(line, BatchAlgorithm.ITEM_END)) {
+				if (currentItem >= 0) {
+					lastEventTime = System.nanoTime();
+					final long itemEndTimestamp = getTimestamp(line, BatchAlgorithm.ITEM_END);
+					final long time = ((itemStartTimestamp >= 0) && (itemEndTimestamp >= 0))
+							? itemEndTimestamp - itemStartTimestamp
+							: lastEventTime - itemStartTime;
+					final K result = results.get(currentItem);
+					result.setTerminatedInTime(true);
+					result.setTime(time / 1_000_000L);
+					result.setNanoTime(time);
+					result.setPhaseTime(Phase.RUN_PROCESS, time);
+					final Timer timer = phaseRecorder.start(Phase.PARSE_RESULTS);
+					try {
+						result.setResult(algorithm.parseResults());
+					} catch (Exception e) {
+						Logger.getInstance().logError(e, 1);
+						itemFailed = true;
+					}
+					result.setPhaseTime(Phase.PARSE_RESULTS, timer.stop());
+					result.setNoError(!itemFailed && (errStreamCollector.getErrorCount() == itemErrorCount));
+					nextItem = currentItem + 1;
+					currentItem = -1;
+				}
+			} else if (currentItem >= 0) {
+				algorithm.readOutput(line);
+			}
+		}
+
+		/**
+		 * Sets the result of the item that was interrupted by the termination of the process. If the process
+		 * exceeded the timeout between two items, the next item is interrupted.
+		 *
+		 * @return the index of the first item that was not processed
+		 */
+		private synchronized int finish(boolean terminatedInTime) {
+			if (currentItem < 0) {
+				if (terminatedInTime || (nextItem >= results.size())) {
+					return nextItem;
+				}
+				currentItem = nextItem;
+				itemStartTime = lastEventTime;
+				itemErrorCount = errStreamCollector.getErrorCount();
+				itemFailed = false;
+			}
+			final K result = results.get(currentItem);
+			result.setTerminatedInTime(terminatedInTime);
+			if (terminatedInTime) {
+				result.setNoError(false);
+				final long time = System.nanoTime() - itemStartTime;
+				result.setTime(time / 1_000_000L);
+				result.setNanoTime(time);
+			} else {
+				result.setNoError(!itemFailed && (errStreamCollector.getErrorCount() == itemErrorCount));
+				result.setTime(timeout);
+				result.setNanoTime(TimeUnit.MILLISECONDS.toNanos(timeout));
+			}
+			interruptedItem = currentItem;
+			nextItem = currentItem + 1;
+			currentItem = -1;
+			return nextItem;
+		}
+
+		private boolean isMarker(String line, String marker) {
+			return line.startsWith(marker)
+					&& ((line.length() == marker.length()) || (line.charAt(marker.length()) == ' '));
+		}
+
+		private long getTimestamp(String line, String marker) {
+			try {
+				return Long.parseLong(line.substring(marker.length()).trim());
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+
+	}
+
+	/**
+	 * Measures the time that is needed to start and stop a process with the given command in the same way as the time
+	 * of a run is measured, i.e., with the same pinning, limits, and cgroup.
+	 *
+	 * @param command a command that does no work
+	 * @param runs the number of measurements
+	 * @return the median time in nanoseconds
+	 */
+	public long calibrate(List<String> command, int runs) throws IOException, InterruptedException {
+		final long[] times = new long[runs];
+		for (int i = 0; i < runs; i++) {
+			final ProcessBuilder processBuilder = new ProcessBuilder();
+			final List<String> processCommand = (classDataSharing != null)
+					? classDataSharing.getCommand(command, processBuilder.environment(), this)
+					: command;
+			processBuilder.command(getLimitedCommand(getPinnedCommand(processCommand)));
+			processBuilder.redirectErrorStream(true);
+			processBuilder.redirectOutput(new File("/dev/null"));
+			Cgroup cgroup = null;
+			try {
+				cgroup = createCgroup(processBuilder);
+				final long startTime = System.nanoTime();
+				final Process process = processBuilder.start();
+				if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+					if (cgroup != null) {
+						cgroup.kill();
+					} else {
+						ProcessMonitor.killProcessTree(process);
+					}
+					throw new IOException("Calibration command exceeded the timeout: " + String.join(" ", command));
+				}
+				times[i] = System.nanoTime() - startTime;
+			} finally {
+				if (cgroup != null) {
+					try {
+						cgroup.remove();
+					} catch (IOException e) {
+						Logger.getInstance().logError(e, 1);
+					}
+				}
+			}
+		}
+		Arrays.sort(times);
+		return times[runs / 2];
+	}
+
+	/**
+	 * Runs the given command without measuring it, but with the same pinning, limits, cgroup, and timeout as a run.
+	 *
+	 * @return whether the process terminated in time with exit code 0
+	 */
+	boolean runUnmeasured(List<String> command, Map<String, String> environment)
+			throws IOException, InterruptedException {
+		final ProcessBuilder processBuilder = new ProcessBuilder(getLimitedCommand(getPinnedCommand(command)));
+		processBuilder.environment().clear();
+		processBuilder.environment().putAll(environment);
+		processBuilder.redirectErrorStream(true);
+		processBuilder.redirectOutput(new File("/dev/null"));
+		Cgroup cgroup = null;
+		try {
+			cgroup = createCgroup(processBuilder);
+			final Process process = processBuilder.start();
+			if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+				if (cgroup != null) {
+					cgroup.kill();
+				} else {
+					ProcessMonitor.killProcessTree(process);
+				}
+				return false;
+			}
+			return process.exitValue() == 0;
+		} finally {
+			if (cgroup != null) {
+				try {
+					cgroup.remove();
+				} catch (IOException e) {
+					Logger.getInstance().logError(e, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a new group for one process and changes the command of the given builder to move the process into it.
+	 *
+	 * @return the group or {@code null} if no cgroup root is set
+	 */
+	private Cgroup createCgroup(ProcessBuilder processBuilder) throws IOException {
+		if (cgroupRoot == null) {
+			return null;
+		}
+		final Cgroup cgroup = new Cgroup(cgroupRoot.resolve("run-" + CGROUP_COUNTER.incrementAndGet()),
+				(resourceLimits != null) ? resourceLimits : new ResourceLimits());
+		processBuilder.command(cgroup.wrap(processBuilder.command()));
+		return cgroup;
+	}
+
+	private ErrStreamCollector createErrStreamCollector() {
+		final ErrStreamCollector errStreamCollector = new ErrStreamCollector(errorHeadLines, errorTailLines,
+				ErrStreamCollector.DEFAULT_MAX_LINE_LENGTH);
+		errStreamCollector.setErrorPattern(errorPattern);
+		errStreamCollector.setIgnorePattern(ignoredErrorPattern);
+		return errStreamCollector;
+	}
+
+	private void logErrors(ErrStreamCollector errStreamCollector) {
+		for (String line : errStreamCollector.getHead()) {
+			Logger.getInstance().logError(line, 1);
+		}
+		final long omittedLineCount = errStreamCollector.getOmittedLineCount();
+		if (omittedLineCount > 0) {
+			Logger.getInstance().logError("[" + omittedLineCount + " lines omitted]", 1);
+		}
+		for (String line : errStreamCollector.getTail()) {
+			Logger.getInstance().logError(line, 1);
+		}
+	}
+
+	private List<IOutputReader> getOutputReaders(A algorithm) throws NoSuchMethodException {
+		final List<IOutputReader> outputReaders = new ArrayList<>(2);
+		if (logOutput) {
+			outputReaders.add(new OutStreamReader());
+		}
+		if (algorithm.getClass().getMethod("readOutput", String.class).getDeclaringClass() != Algorithm.class) {
+			outputReaders.add(algorithm);
+		}
+		return outputReaders;
+	}
+
+	private StreamRedirector getRedirector(InputStream in, List<IOutputReader> outputReaders) {
+		final StreamRedirector redirector = new StreamRedirector(outputReaders);
+		redirector.setInputStream(in);
+		return redirector;
+	}
+
+	/**
+	 * Creates a redirector for error output, which cuts long lines. The error output is only logged, so cut lines do
+	 * not affect the result of a run.
+	 */
+	private StreamRedirector getErrorRedirector(InputStream in, ErrStreamCollector errStreamCollector) {
+		final StreamRedirector redirector = new StreamRedirector(Collections.singletonList(errStreamCollector),
+				StreamRedirector.DEFAULT_MAX_LINE_LENGTH);
+		redirector.setInputStream(in);
+		return redirector;
+	}
+
+	/**
+	 * Waits until the output streams of a terminated process are read completely. Streams that are kept open (e.g.,
+	 * by a child of the process) are closed after a short time.
+	 */
+	private void awaitStreams(Process process, List<Future<?>> drainers) throws InterruptedException {
+		process.waitFor(STREAM_CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STREAM_CLOSE_TIMEOUT);
+		for (Future<?> drainer : drainers) {
+			try {
+				drainer.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				closeQuietly(process.getInputStream());
+				closeQuietly(process.getErrorStream());
+			} catch (ExecutionException e) {
+				Logger.getInstance().logError(e.getCause());
+			}
+		}
+	}
+
+	private void closeQuietly(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private synchronized ExecutorService getStreamExecutor() {
+		if (streamExecutor == null) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			streamExecutor = Executors.newFixedThreadPool(2, runnable -> {
+				final Thread thread = new Thread(runnable, "StreamReader-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return streamExecutor;
+	}
+
+	private void setStatistics(K result, ProcessStatistics statistics) {
+		result.setPeakMemory(statistics.getPeakMemory());
+		result.setUserTime(statistics.getUserTime());
+		result.setSystemTime(statistics.getSystemTime());
+		result.setVoluntaryContextSwitches(statistics.getVoluntaryContextSwitches());
+		result.setInvoluntaryContextSwitches(statistics.getInvoluntaryContextSwitches());
+		result.setThreads(statistics.getThreads());
+	}
+
+	private boolean runInWorker(WorkerAlgorithm<?> algorithm, K result) throws IOException {
+		final WorkerConnection worker = getWorker(algorithm);
+		if (!worker.isWarm(algorithm)) {
+			final int curWarmupIterations = (algorithm.getWarmupIterations() < 0) ? warmupIterations
+					: algorithm.getWarmupIterations();
+			for (int i = 0; i < curWarmupIterations; i++) {
+				// The output of warmup iterations must not change the state of the algorithm
+				final Invocation warmup = worker.invoke(algorithm, timeout, createErrStreamCollector(), null);
+				if (!warmup.isTerminatedInTime()) {
+					result.setTerminatedInTime(false);
+					result.setNoError(false);
+					result.setTime(warmup.getTime() / 1_000_000L);
+					result.setNanoTime(warmup.getTime());
+					return false;
+				}
+			}
+			worker.setWarm(algorithm);
+		}
+
+		final ErrStreamCollector errStreamCollector = createErrStreamCollector();
+		final Invocation invocation = worker.invoke(algorithm, timeout, errStreamCollector);
+		logErrors(errStreamCollector);
+		result.setTerminatedInTime(invocation.isTerminatedInTime());
+		result.setNoError(invocation.isSuccess() && !errStreamCollector.hasErrors());
+		result.setTime(invocation.getTime() / 1_000_000L);
+		result.setNanoTime(invocation.getTime());
+		return invocation.isTerminatedInTime();
+	}
+
+	private WorkerConnection getWorker(WorkerAlgorithm<?> algorithm) {
+		return workers.computeIfAbsent(algorithm.getJvmArguments(), jvmArguments -> {
+			final List<String> command = new ArrayList<>();
+			command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+			command.addAll(jvmArguments);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(Worker.class.getName());
+			return new WorkerConnection(getPinnedCommand(command));
+		});
+	}
+
+	/**
+	 * Stops all worker JVMs and stream reader threads started by this runner.
+	 */
+	public void dispose() {
+		for (WorkerConnection worker : workers.values()) {
+			worker.close();
+		}
+		workers.clear();
+		synchronized (this) {
+			if (streamExecutor != null) {
+				streamExecutor.shutdownNow();
+				streamExecutor = null;
+			}
+		}
+	}
+
+	private List<String> getPinnedCommand(List<String> command) {
+		if (cpuSet == null) {
+			return command;
+		}
+		final List<String> pinnedCommand = new ArrayList<>(command.size() + 3);
+		pinnedCommand.add("taskset");
+		pinnedCommand.add("-c");
+		pinnedCommand.add(cpuSet);
+		pinnedCommand.addAll(command);
+		return pinnedCommand;
+	}
+
+	/**
+	 * Applies the resource limits using ulimit, if no cgroup is used. CPU bandwidth cannot be limited this way and the
+	 * process limit of ulimit counts all processes of the user.
+	 */
+	private List<String> getLimitedCommand(List<String> command) {
+		if ((cgroupRoot != null) || (resourceLimits == null) || resourceLimits.isEmpty()) {
+			return command;
+		}
+		final StringBuilder script = new StringBuilder();
+		if (resourceLimits.getMemoryMax() > 0) {
+			script.append("ulimit -v ").append(Math.max(1, resourceLimits.getMemoryMax() / 1024)).append(" && ");
+		}
+		if (resourceLimits.getPidsMax() > 0) {
+			// dash uses -p instead of -u
+			script.append("{ ulimit -u ").append(resourceLimits.getPidsMax()).append(" 2>/dev/null || ulimit -p ")
+					.append(resourceLimits.getPidsMax()).append("; } && ");
+		}
+		script.append("exec \"$@\"");
+		final List<String> limitedCommand = new ArrayList<>(command.size() + 4);
+		limitedCommand.add("sh");
+		limitedCommand.add("-c");
+		limitedCommand.add(script.toString());
+		limitedCommand.add("sh");
+		limitedCommand.addAll(command);
+		return limitedCommand;
 	}
 
 	protected void setResult(A algorithm, K result) throws IOException {
@@ -93,4 +801,141 @@ public class ProcessRunner<R, A extends Algorithm<R>, K extends Result<R>> {
 	public void setTimeout(long timeout) {
 		this.timeout = timeout;
 	}
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	/**
+	 * Sets the default number of unmeasured iterations that are run for each {@link WorkerAlgorithm} after a worker
+	 * was started.
+	 */
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public ProcessMonitor getProcessMonitor() {
+		return processMonitor;
+	}
+
+	/**
+	 * Sets the monitor that samples the resource usage of all started processes.
+	 *
+	 * @param processMonitor the monitor or {@code null} to disable sampling
+	 */
+	public void setProcessMonitor(ProcessMonitor processMonitor) {
+		this.processMonitor = processMonitor;
+	}
+
+	public boolean isLogOutput() {
+		return logOutput;
+	}
+
+	/**
+	 * Sets whether the standard output of the started processes is written to the log.
+	 */
+	public void setLogOutput(boolean logOutput) {
+		this.logOutput = logOutput;
+	}
+
+	public int getErrorHeadLines() {
+		return errorHeadLines;
+	}
+
+	public int getErrorTailLines() {
+		return errorTailLines;
+	}
+
+	/**
+	 * Sets how many lines from the beginning and the end of the error output of each process are kept and logged.
+	 */
+	public void setErrorLines(int errorHeadLines, int errorTailLines) {
+		this.errorHeadLines = errorHeadLines;
+		this.errorTailLines = errorTailLines;
+	}
+
+	public Pattern getErrorPattern() {
+		return errorPattern;
+	}
+
+	/**
+	 * Sets the pattern for lines in the error output that mark a run as erroneous.
+	 *
+	 * @param errorPattern the pattern or {@code null} to treat every line as error
+	 */
+	public void setErrorPattern(Pattern errorPattern) {
+		this.errorPattern = errorPattern;
+	}
+
+	public Pattern getIgnoredErrorPattern() {
+		return ignoredErrorPattern;
+	}
+
+	/**
+	 * Sets the pattern for lines in the error output that never mark a run as erroneous.
+	 *
+	 * @param ignoredErrorPattern the pattern or {@code null} to ignore no line
+	 */
+	public void setIgnoredErrorPattern(Pattern ignoredErrorPattern) {
+		this.ignoredErrorPattern = ignoredErrorPattern;
+	}
+
+	public String getCpuSet() {
+		return cpuSet;
+	}
+
+	/**
+	 * Pins all started processes to the given CPU cores (in the list format of taskset, e.g., "0-3").
+	 *
+	 * @param cpuSet the cores to use or {@code null} to disable pinning
+	 */
+	public void setCpuSet(String cpuSet) {
+		this.cpuSet = cpuSet;
+	}
+
+	public Path getTempPath() {
+		return tempPath;
+	}
+
+	/**
+	 * Sets the directory for the files of {@link ResultChannel result channels}.
+	 *
+	 * @param tempPath the directory or {@code null} to use the default directory for temporary files
+	 */
+	public void setTempPath(Path tempPath) {
+		this.tempPath = tempPath;
+	}
+
+	public ClassDataSharing getClassDataSharing() {
+		return classDataSharing;
+	}
+
+	/**
+	 * Sets the class data sharing archives that are used for all started JVMs (except workers and batch processes).
+	 *
+	 * @param classDataSharing the archives or {@code null} to disable class data sharing
+	 */
+	public void setClassDataSharing(ClassDataSharing classDataSharing) {
+		this.classDataSharing = classDataSharing;
+	}
+
+	public ResourceLimits getResourceLimits() {
+		return resourceLimits;
+	}
+
+	public Path getCgroupRoot() {
+		return cgroupRoot;
+	}
+
+	/**
+	 * Limits the resources of all started processes (except workers). If a cgroup is given, each run is executed in
+	 * its own child group, which is also used to measure and kill the run. Otherwise, the limits are set via ulimit.
+	 *
+	 * @param resourceLimits the limits or {@code null} to disable limits
+	 * @param cgroupRoot the parent group prepared by {@link Cgroup#setup(String)} or {@code null} to use ulimit
+	 */
+	public void setResourceLimits(ResourceLimits resourceLimits, Path cgroupRoot) {
+		this.resourceLimits = resourceLimits;
+		this.cgroupRoot = cgroupRoot;
+	}
 }
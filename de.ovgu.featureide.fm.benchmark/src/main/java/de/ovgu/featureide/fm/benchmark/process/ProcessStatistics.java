@@ -0,0 +1,89 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resource usage of a process tree as sampled by a {@link ProcessMonitor}. CPU times include all terminated
+ * descendants that were waited for by a process of the tree. Context switches of processes that terminated are kept
+ * with their last sampled value.
+ */
+public class ProcessStatistics {
+
+	static class ProcessSample {
+		long voluntaryContextSwitches, involuntaryContextSwitches;
+	}
+
+	private final long pid;
+
+	private final Map<Long, ProcessSample> processSamples = new HashMap<>();
+
+	private long peakMemory = -1;
+	private long threads = -1;
+	private long userTime = -1;
+	private long systemTime = -1;
+
+	ProcessStatistics(long pid) {
+		this.pid = pid;
+	}
+
+	long getPid() {
+		return pid;
+	}
+
+	ProcessSample getProcessSample(long pid) {
+		return processSamples.computeIfAbsent(pid, p -> new ProcessSample());
+	}
+
+	void updatePeaks(long memory, long threads) {
+		peakMemory = Math.max(peakMemory, memory);
+		this.threads = Math.max(this.threads, threads);
+	}
+
+	void updateTimes(long userTime, long systemTime) {
+		this.userTime = Math.max(this.userTime, userTime);
+		this.systemTime = Math.max(this.systemTime, systemTime);
+	}
+
+	private boolean isSampled() {
+		return !processSamples.isEmpty();
+	}
+
+	/**
+	 * @return the peak resident set size of the process tree in bytes
+	 */
+	public synchronized long getPeakMemory() {
+		return peakMemory;
+	}
+
+	/**
+	 * @return the maximum number of threads of the process tree
+	 */
+	public synchronized long getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the user CPU time of the process tree in milliseconds
+	 */
+	public synchronized long getUserTime() {
+		return userTime;
+	}
+
+	/**
+	 * @return the system CPU time of the process tree in milliseconds
+	 */
+	public synchronized long getSystemTime() {
+		return systemTime;
+	}
+
+	public synchronized long getVoluntaryContextSwitches() {
+		return isSampled() ? processSamples.values().stream().mapToLong(s -> s.voluntaryContextSwitches).sum() : -1;
+	}
+
+	public synchronized long getInvoluntaryContextSwitches() {
+		return isSampled() ? processSamples.values().stream().mapToLong(s -> s.involuntaryContextSwitches).sum()
+				: -1;
+	}
+
+}
@@ -0,0 +1,49 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+/**
+ * Limits for the resources of a single run. A value of 0 means that the resource is not limited.
+ */
+public class ResourceLimits {
+
+	private long memoryMax = 0;
+	private double cpuMax = 0;
+	private long pidsMax = 0;
+
+	/**
+	 * @return the maximum memory in bytes
+	 */
+	public long getMemoryMax() {
+		return memoryMax;
+	}
+
+	public void setMemoryMax(long memoryMax) {
+		this.memoryMax = memoryMax;
+	}
+
+	/**
+	 * @return the maximum CPU bandwidth as number of CPUs (e.g., 1.5)
+	 */
+	public double getCpuMax() {
+		return cpuMax;
+	}
+
+	public void setCpuMax(double cpuMax) {
+		this.cpuMax = cpuMax;
+	}
+
+	/**
+	 * @return the maximum number of processes and threads
+	 */
+	public long getPidsMax() {
+		return pidsMax;
+	}
+
+	public void setPidsMax(long pidsMax) {
+		this.pidsMax = pidsMax;
+	}
+
+	public boolean isEmpty() {
+		return (memoryMax <= 0) && (cpuMax <= 0) && (pidsMax <= 0);
+	}
+
+}
@@ -1,13 +1,39 @@
 package de.ovgu.featureide.fm.benchmark.process;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.ovgu.featureide.fm.benchmark.util.Phase;
+
 public class Result<R> {
 	
 	public static long INVALID_TIME = -1;
 
 	private boolean terminatedInTime = false;
 	private boolean noError = false;
+	private boolean outOfMemory = false;
+	private boolean classDataSharing = false;
+	private boolean memoized = false;
 	private long time = INVALID_TIME;
+	private long nanoTime = INVALID_TIME;
+	private long spawnTime = INVALID_TIME;
+	private Map<String, Long> internalTimes = null;
+	private long peakMemory = -1;
+	private long userTime = -1;
+	private long systemTime = -1;
+	private long voluntaryContextSwitches = -1;
+	private long involuntaryContextSwitches = -1;
+	private long threads = -1;
 	private R result = null;
+	private final long[] phaseTimes = createPhaseTimes();
+
+	private static long[] createPhaseTimes() {
+		final long[] phaseTimes = new long[Phase.values().length];
+		Arrays.fill(phaseTimes, -1);
+		return phaseTimes;
+	}
 
 	public boolean isTerminatedInTime() {
 		return terminatedInTime;
@@ -25,6 +51,40 @@ public class Result<R> {
 		this.noError = noError;
 	}
 
+	/**
+	 * @return whether the run was killed because it exceeded its memory limit
+	 */
+	public boolean isOutOfMemory() {
+		return outOfMemory;
+	}
+
+	public void setOutOfMemory(boolean outOfMemory) {
+		this.outOfMemory = outOfMemory;
+	}
+
+	/**
+	 * @return whether the process of the run was started with a verified class data sharing archive and
+	 *         {@code -Xshare:on}, i.e., the JVM could not run without using the archive
+	 */
+	public boolean isClassDataSharing() {
+		return classDataSharing;
+	}
+
+	public void setClassDataSharing(boolean classDataSharing) {
+		this.classDataSharing = classDataSharing;
+	}
+
+	/**
+	 * @return whether the result was taken from the result memo instead of running the algorithm
+	 */
+	public boolean isMemoized() {
+		return memoized;
+	}
+
+	public void setMemoized(boolean memoized) {
+		this.memoized = memoized;
+	}
+
 	public long getTime() {
 		return time;
 	}
@@ -33,6 +93,91 @@ public class Result<R> {
 		this.time = time;
 	}
 
+	/**
+	 * @return the time of the run in nanoseconds
+	 */
+	public long getNanoTime() {
+		return nanoTime;
+	}
+
+	public void setNanoTime(long nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * @return the calibrated time in nanoseconds that is needed to start and stop a process of the algorithm or
+	 *         {@link #INVALID_TIME} if the time of the run does not contain it
+	 */
+	public long getSpawnTime() {
+		return spawnTime;
+	}
+
+	public void setSpawnTime(long spawnTime) {
+		this.spawnTime = spawnTime;
+	}
+
+	/**
+	 * @return the times in nanoseconds of the phases reported by the algorithm itself (e.g., parse, solve, write)
+	 */
+	public Map<String, Long> getInternalTimes() {
+		return (internalTimes == null) ? Collections.emptyMap() : Collections.unmodifiableMap(internalTimes);
+	}
+
+	public void setInternalTime(String name, long internalTime) {
+		if (internalTimes == null) {
+			internalTimes = new LinkedHashMap<>();
+		}
+		internalTimes.put(name, internalTime);
+	}
+
+	public long getPeakMemory() {
+		return peakMemory;
+	}
+
+	public void setPeakMemory(long peakMemory) {
+		this.peakMemory = peakMemory;
+	}
+
+	public long getUserTime() {
+		return userTime;
+	}
+
+	public void setUserTime(long userTime) {
+		this.userTime = userTime;
+	}
+
+	public long getSystemTime() {
+		return systemTime;
+	}
+
+	public void setSystemTime(long systemTime) {
+		this.systemTime = systemTime;
+	}
+
+	public long getVoluntaryContextSwitches() {
+		return voluntaryContextSwitches;
+	}
+
+	public void setVoluntaryContextSwitches(long voluntaryContextSwitches) {
+		this.voluntaryContextSwitches = voluntaryContextSwitches;
+	}
+
+	public long getInvoluntaryContextSwitches() {
+		return involuntaryContextSwitches;
+	}
+
+	public void setInvoluntaryContextSwitches(long involuntaryContextSwitches) {
+		this.involuntaryContextSwitches = involuntaryContextSwitches;
+	}
+
+	public long getThreads() {
+		return threads;
+	}
+
+	public void setThreads(long threads) {
+		this.threads = threads;
+	}
+
 	public R getResult() {
 		return result;
 	}
@@ -41,4 +186,15 @@ public class Result<R> {
 		this.result = result;
 	}
 
+	/**
+	 * @return the duration of the given phase in nanoseconds or -1 if it was not measured
+	 */
+	public long getPhaseTime(Phase phase) {
+		return phaseTimes[phase.ordinal()];
+	}
+
+	public void setPhaseTime(Phase phase, long phaseTime) {
+		phaseTimes[phase.ordinal()] = phaseTime;
+	}
+
 }
@@ -0,0 +1,113 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Client side of the result channel, which is used by a started process to pass its results to the harness without
+ * text serialization. The channel is a file whose path is passed in the environment variable
+ * {@value #ENVIRONMENT_VARIABLE}. It contains a sequence of records, each consisting of a type (1 byte), the length of
+ * the payload (4 bytes, big endian), and the payload. Processes that are not written in Java can write this format
+ * directly.
+ *
+ * @see ResultChannelReader
+ */
+public class ResultChannel implements Closeable {
+
+	public static final String ENVIRONMENT_VARIABLE = "BENCHMARK_RESULT_CHANNEL";
+
+	/**
+	 * Record with arbitrary result data.
+	 */
+	public static final byte DATA = 1;
+	/**
+	 * Record with a time measured by the process. The payload consists of the time in nanoseconds (8 bytes, big
+	 * endian) followed by its name (UTF-8).
+	 */
+	public static final byte TIME = 2;
+
+	static final int HEADER_SIZE = 5;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * Opens the result channel of the current process.
+	 *
+	 * @return the channel or {@code null} if the harness did not provide one
+	 */
+	public static ResultChannel open() throws IOException {
+		final String path = System.getenv(ENVIRONMENT_VARIABLE);
+		return (path == null) ? null : new ResultChannel(
+				FileChannel.open(Paths.get(path), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	private ResultChannel(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	public void write(byte[] data) throws IOException {
+		write(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Writes the remaining bytes of the given buffer as one {@link #DATA} record.
+	 */
+	public void write(ByteBuffer data) throws IOException {
+		writeRecord(DATA, data);
+	}
+
+	public void writeTime(String name, long nanoTime) throws IOException {
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer payload = ByteBuffer.allocate(8 + nameBytes.length);
+		payload.putLong(nanoTime);
+		payload.put(nameBytes);
+		payload.flip();
+		writeRecord(TIME, payload);
+	}
+
+	/**
+	 * Writes the remaining bytes of the given payload as one record. Payloads that do not fit into the buffer are
+	 * written straight to the channel.
+	 */
+	private void writeRecord(byte type, ByteBuffer payload) throws IOException {
+		if (buffer.remaining() < HEADER_SIZE) {
+			flush();
+		}
+		buffer.put(type);
+		buffer.putInt(payload.remaining());
+		if (payload.remaining() > buffer.remaining()) {
+			flush();
+			while (payload.hasRemaining()) {
+				channel.write(payload);
+			}
+		} else {
+			buffer.put(payload);
+		}
+	}
+
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Harness side of the {@link ResultChannel}. The file is mapped into memory and the data records are returned as
+ * read-only views of the mapping, such that they are not copied.
+ */
+public class ResultChannelReader {
+
+	private final List<ByteBuffer> data = new ArrayList<>();
+	private final Map<String, Long> times = new LinkedHashMap<>();
+	private boolean complete = true;
+
+	/**
+	 * Reads all records of the given file. A truncated last record (e.g., of a killed process) is ignored.
+	 */
+	public static ResultChannelReader read(Path file) throws IOException {
+		final ResultChannelReader reader = new ResultChannelReader();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Result channel is too large: " + size);
+			}
+			if (size > 0) {
+				reader.readRecords(channel.map(MapMode.READ_ONLY, 0, size));
+			}
+		}
+		return reader;
+	}
+
+	private void readRecords(ByteBuffer buffer) {
+		while (buffer.remaining() >= ResultChannel.HEADER_SIZE) {
+			final byte type = buffer.get();
+			final int length = buffer.getInt();
+			if ((length < 0) || (length > buffer.remaining())) {
+				complete = false;
+				return;
+			}
+			final ByteBuffer payload = buffer.slice();
+			payload.limit(length);
+			buffer.position(buffer.position() + length);
+			if (type == ResultChannel.DATA) {
+				data.add(payload.asReadOnlyBuffer());
+			} else if ((type == ResultChannel.TIME) && (length >= 8)) {
+				final long time = payload.getLong();
+				final byte[] name = new byte[payload.remaining()];
+				payload.get(name);
+				times.put(new String(name, StandardCharsets.UTF_8), time);
+			}
+		}
+		complete = !buffer.hasRemaining();
+	}
+
+	/**
+	 * @return the payloads of all data records in the order in which they were written
+	 */
+	public List<ByteBuffer> getData() {
+		return Collections.unmodifiableList(data);
+	}
+
+	/**
+	 * @return the times in nanoseconds by their names
+	 */
+	public Map<String, Long> getTimes() {
+		return Collections.unmodifiableMap(times);
+	}
+
+	/**
+	 * @return whether the last record was written completely
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+}
@@ -0,0 +1,117 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Main class of a worker JVM. Connects to the given local port and executes {@link IWorkerTask tasks} until the
+ * connection is closed.
+ *
+ * @see WorkerConnection
+ */
+public class Worker {
+
+	/**
+	 * Line that is written to the standard output and error stream after each task. Allows the
+	 * {@link WorkerConnection} to wait until it has read all output of a task.
+	 */
+	public static final String TASK_END = "\u0001worker-task-end";
+
+	private static final int MAX_MESSAGE_LENGTH = 1024;
+
+	private final Map<List<String>, ClassLoader> classLoaders = new HashMap<>();
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 1) {
+			System.err.println("Port not specified!");
+			System.exit(1);
+		}
+		new Worker().run(Integer.parseInt(args[0]));
+	}
+
+	private void run(int port) throws Exception {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			while (true) {
+				final List<String> classPath;
+				try {
+					classPath = readList(in);
+				} catch (EOFException e) {
+					break;
+				}
+				final String className = in.readUTF();
+				final List<String> arguments = readList(in);
+
+				boolean success = false;
+				long time = 0;
+				String message = "";
+				try {
+					final Class<?> taskClass = Class.forName(className, true, getClassLoader(classPath));
+					final IWorkerTask task = (IWorkerTask) taskClass.getDeclaredConstructor().newInstance();
+					final long startTime = System.nanoTime();
+					try {
+						task.run(arguments.toArray(new String[0]));
+					} finally {
+						time = System.nanoTime() - startTime;
+					}
+					success = true;
+				} catch (Throwable e) {
+					e.printStackTrace();
+					message = String.valueOf(e);
+					if (message.length() > MAX_MESSAGE_LENGTH) {
+						message = message.substring(0, MAX_MESSAGE_LENGTH);
+					}
+				}
+				System.out.println(TASK_END);
+				System.out.flush();
+				System.err.println(TASK_END);
+				System.err.flush();
+
+				out.writeBoolean(success);
+				out.writeLong(time);
+				out.writeUTF(message);
+				out.flush();
+			}
+		}
+	}
+
+	private ClassLoader getClassLoader(List<String> classPath) throws MalformedURLException {
+		if (classPath.isEmpty()) {
+			return Worker.class.getClassLoader();
+		}
+		ClassLoader classLoader = classLoaders.get(classPath);
+		if (classLoader == null) {
+			final URL[] urls = new URL[classPath.size()];
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = Paths.get(classPath.get(i)).toUri().toURL();
+			}
+			classLoader = new URLClassLoader(urls, Worker.class.getClassLoader());
+			classLoaders.put(classPath, classLoader);
+		}
+		return classLoader;
+	}
+
+	private static List<String> readList(DataInputStream in) throws Exception {
+		final int size = in.readInt();
+		final List<String> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(in.readUTF());
+		}
+		return list;
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An algorithm that is run inside a long-lived worker JVM instead of a new process.
+ * The command elements are passed as arguments to the {@link IWorkerTask} given by {@link #getTaskClassName()}.
+ */
+public abstract class WorkerAlgorithm<R> extends Algorithm<R> {
+
+	protected int warmupIterations = -1;
+
+	public abstract String getTaskClassName();
+
+	/**
+	 * @return additional class path entries from which the task class is loaded
+	 */
+	public List<String> getClassPath() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * @return arguments for the worker JVM (e.g., heap size). Algorithms with different JVM arguments use different
+	 *         workers.
+	 */
+	public List<String> getJvmArguments() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<String> getCalibrationCommand() {
+		return Collections.emptyList();
+	}
+
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+}
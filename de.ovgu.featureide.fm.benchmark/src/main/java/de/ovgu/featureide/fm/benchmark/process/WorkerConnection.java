@@ -0,0 +1,282 @@
+package de.ovgu.featureide.fm.benchmark.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.sk.utils.Logger;
+
+import de.ovgu.featureide.fm.benchmark.streams.ErrStreamCollector;
+import de.ovgu.featureide.fm.benchmark.streams.IOutputReader;
+import de.ovgu.featureide.fm.benchmark.streams.OutStreamReader;
+import de.ovgu.featureide.fm.benchmark.streams.StreamRedirector;
+
+/**
+ * Connection to a {@link Worker} JVM. The worker is started on first use and restarted after it crashed or was
+ * killed because of a timeout.
+ */
+public class WorkerConnection implements Closeable {
+
+	private static final int CONNECT_TIMEOUT = 60_000;
+	private static final int TASK_END_TIMEOUT = 10_000;
+
+	public static class Invocation {
+
+		private final boolean terminatedInTime;
+		private final boolean success;
+		private final long time;
+
+		private Invocation(boolean terminatedInTime, boolean success, long time) {
+			this.terminatedInTime = terminatedInTime;
+			this.success = success;
+			this.time = time;
+		}
+
+		public boolean isTerminatedInTime() {
+			return terminatedInTime;
+		}
+
+		public boolean isSuccess() {
+			return success;
+		}
+
+		/**
+		 * @return the time in nanoseconds that the task took inside the worker or, if it did not terminate in time,
+		 *         the time until it was stopped
+		 */
+		public long getTime() {
+			return time;
+		}
+
+	}
+
+	private final List<String> command;
+	private final Set<String> warmAlgorithms = new HashSet<>();
+
+	private volatile IOutputReader outputReader = null;
+	private volatile ErrStreamCollector errStreamCollector = null;
+	private volatile CountDownLatch taskEnd = null;
+
+	private final OutStreamReader outStreamReader = new OutStreamReader();
+
+	private Process process = null;
+	private Socket socket = null;
+	private DataInputStream in = null;
+	private DataOutputStream out = null;
+
+	/**
+	 * @param command the command to start the worker JVM, without the port argument
+	 */
+	public WorkerConnection(List<String> command) {
+		this.command = command;
+	}
+
+	private void start() throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			serverSocket.setSoTimeout(CONNECT_TIMEOUT);
+			final List<String> workerCommand = new ArrayList<>(command);
+			workerCommand.add(Integer.toString(serverSocket.getLocalPort()));
+			Logger.getInstance().logInfo("Starting worker: " + String.join(" ", workerCommand), 1);
+			process = new ProcessBuilder(workerCommand).start();
+
+			final StreamRedirector outRedirector = new StreamRedirector(Collections.singletonList(this::readOutput));
+			final StreamRedirector errRedirector = new StreamRedirector(
+					Collections.singletonList(this::readError));
+			outRedirector.setInputStream(process.getInputStream());
+			errRedirector.setInputStream(process.getErrorStream());
+			final Thread outThread = new Thread(outRedirector);
+			final Thread errThread = new Thread(errRedirector);
+			outThread.setDaemon(true);
+			errThread.setDaemon(true);
+			outThread.start();
+			errThread.start();
+
+			socket = serverSocket.accept();
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		warmAlgorithms.clear();
+	}
+
+	private void readOutput(String line) throws Exception {
+		if (line.endsWith(Worker.TASK_END)) {
+			line = line.substring(0, line.length() - Worker.TASK_END.length());
+			if (!line.isEmpty()) {
+				forwardOutput(line);
+			}
+			countDownTaskEnd();
+		} else {
+			forwardOutput(line);
+		}
+	}
+
+	private void forwardOutput(String line) throws Exception {
+		outStreamReader.readOutput(line);
+		final IOutputReader curOutputReader = outputReader;
+		if (curOutputReader != null) {
+			curOutputReader.readOutput(line);
+		}
+	}
+
+	private void readError(String line) throws Exception {
+		if (line.endsWith(Worker.TASK_END)) {
+			line = line.substring(0, line.length() - Worker.TASK_END.length());
+			if (!line.isEmpty()) {
+				forwardError(line);
+			}
+			countDownTaskEnd();
+		} else {
+			forwardError(line);
+		}
+	}
+
+	private void forwardError(String line) throws Exception {
+		final ErrStreamCollector curErrStreamCollector = errStreamCollector;
+		if (curErrStreamCollector != null) {
+			curErrStreamCollector.readOutput(line);
+		} else {
+			Logger.getInstance().logError(line, 1);
+		}
+	}
+
+	private void countDownTaskEnd() {
+		final CountDownLatch curTaskEnd = taskEnd;
+		if (curTaskEnd != null) {
+			curTaskEnd.countDown();
+		}
+	}
+
+	/**
+	 * Waits until the end of the task was read from both output streams of the worker.
+	 */
+	private void awaitTaskEnd(CountDownLatch curTaskEnd) {
+		try {
+			if (!curTaskEnd.await(TASK_END_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				Logger.getInstance().logError("Output of worker task was not completely read.", 1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs the task of the given algorithm in the worker. Output of the worker is passed to the algorithm while the
+	 * task is running.
+	 *
+	 * @param algorithm the algorithm (already pre-processed)
+	 * @param timeout timeout in milliseconds
+	 * @param errStreamCollector collects the error output of the task
+	 * @return the result of the invocation
+	 * @throws IOException if the worker could not be started or crashed
+	 */
+	public Invocation invoke(WorkerAlgorithm<?> algorithm, long timeout, ErrStreamCollector errStreamCollector)
+			throws IOException {
+		return invoke(algorithm, timeout, errStreamCollector, algorithm);
+	}
+
+	/**
+	 * Runs the task of the given algorithm in the worker. Output of the worker is passed to the given reader while the
+	 * task is running.
+	 *
+	 * @param algorithm the algorithm (already pre-processed)
+	 * @param timeout timeout in milliseconds
+	 * @param errStreamCollector collects the error output of the task
+	 * @param outputReader reads the output of the task or {@code null} to only log it (e.g., for warmup iterations)
+	 * @return the result of the invocation
+	 * @throws IOException if the worker could not be started or crashed
+	 */
+	public Invocation invoke(WorkerAlgorithm<?> algorithm, long timeout, ErrStreamCollector errStreamCollector,
+			IOutputReader outputReader) throws IOException {
+		if (process == null) {
+			start();
+		}
+		final CountDownLatch curTaskEnd = new CountDownLatch(2);
+		this.outputReader = outputReader;
+		this.errStreamCollector = errStreamCollector;
+		taskEnd = curTaskEnd;
+		long startTime = System.nanoTime();
+		try {
+			socket.setSoTimeout((int) Math.max(1, Math.min(timeout, Integer.MAX_VALUE)));
+			writeList(algorithm.getClassPath());
+			out.writeUTF(algorithm.getTaskClassName());
+			writeList(algorithm.getCommandElements());
+			startTime = System.nanoTime();
+			out.flush();
+
+			final boolean success = in.readBoolean();
+			final long time = in.readLong();
+			final String message = in.readUTF();
+			if (!success) {
+				Logger.getInstance().logError(message, 1);
+			}
+			awaitTaskEnd(curTaskEnd);
+			return new Invocation(true, success, time);
+		} catch (SocketTimeoutException e) {
+			final long time = System.nanoTime() - startTime;
+			close();
+			return new Invocation(false, false, time);
+		} catch (IOException e) {
+			close();
+			throw e;
+		} finally {
+			outputReader = null;
+			this.errStreamCollector = null;
+			taskEnd = null;
+		}
+	}
+
+	private void writeList(List<String> list) throws IOException {
+		out.writeInt(list.size());
+		for (String element : list) {
+			out.writeUTF(element);
+		}
+	}
+
+	/**
+	 * Marks the given algorithm as warmed up for the lifetime of the current worker JVM.
+	 */
+	public void setWarm(WorkerAlgorithm<?> algorithm) {
+		warmAlgorithms.add(algorithm.getFullName());
+	}
+
+	public boolean isWarm(WorkerAlgorithm<?> algorithm) {
+		return warmAlgorithms.contains(algorithm.getFullName());
+	}
+
+	@Override
+	public void close() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+			socket = null;
+		}
+		if (process != null) {
+			process.destroyForcibly();
+			process = null;
+		}
+		in = null;
+		out = null;
+		warmAlgorithms.clear();
+	}
+
+}
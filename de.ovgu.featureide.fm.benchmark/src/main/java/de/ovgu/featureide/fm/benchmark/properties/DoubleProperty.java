@@ -0,0 +1,18 @@
+package de.ovgu.featureide.fm.benchmark.properties;
+
+public class DoubleProperty extends AProperty<Double> {
+
+	public DoubleProperty(String name) {
+		super(name, 0.0);
+	}
+
+	public DoubleProperty(String name, Double defaultValue) {
+		super(name, defaultValue);
+	}
+
+	@Override
+	protected Double cast(String valueString) throws Exception {
+		return Double.parseDouble(valueString);
+	}
+
+}
@@ -2,18 +2,138 @@ package de.ovgu.featureide.fm.benchmark.streams;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
+/**
+ * Collects the error output of a process with constant memory. Only the first and the last lines are kept (each
+ * shortened to a maximum length), all other lines are just counted.
+ */
 public class ErrStreamCollector implements IOutputReader {
 
-	private final List<String> errList = new ArrayList<>();
+	public static final int DEFAULT_HEAD_LINES = 50;
+	public static final int DEFAULT_TAIL_LINES = 50;
+	public static final int DEFAULT_MAX_LINE_LENGTH = 1000;
+
+	private final int headLines;
+	private final int maxLineLength;
+
+	private final List<String> head;
+	private final String[] tail;
+	private int tailIndex = 0;
+
+	private long lineCount = 0;
+	private long errorCount = 0;
+
+	private Pattern errorPattern = null;
+	private Pattern ignorePattern = null;
+
+	public ErrStreamCollector() {
+		this(DEFAULT_HEAD_LINES, DEFAULT_TAIL_LINES, DEFAULT_MAX_LINE_LENGTH);
+	}
+
+	/**
+	 * @param headLines the number of kept lines from the beginning of the output
+	 * @param tailLines the number of kept lines from the end of the output
+	 * @param maxLineLength the maximum number of kept characters per line
+	 */
+	public ErrStreamCollector(int headLines, int tailLines, int maxLineLength) {
+		this.headLines = headLines;
+		this.maxLineLength = maxLineLength;
+		head = new ArrayList<>(headLines);
+		tail = new String[tailLines];
+	}
 
 	@Override
-	public void readOutput(String line) throws Exception {
-		errList.add(line);
+	public synchronized void readOutput(String line) throws Exception {
+		lineCount++;
+		if (isError(line)) {
+			errorCount++;
+		}
+		if (line.length() > maxLineLength) {
+			line = line.substring(0, maxLineLength) + "...";
+		}
+		if (head.size() < headLines) {
+			head.add(line);
+		} else if (tail.length > 0) {
+			tail[tailIndex] = line;
+			tailIndex = (tailIndex + 1) % tail.length;
+		}
 	}
 
-	public List<String> getErrList() {
+	private boolean isError(String line) {
+		return ((errorPattern == null) || errorPattern.matcher(line).find())
+				&& ((ignorePattern == null) || !ignorePattern.matcher(line).find());
+	}
+
+	/**
+	 * @return the kept lines from the beginning and the end of the output
+	 */
+	public synchronized List<String> getErrList() {
+		final List<String> errList = new ArrayList<>(head);
+		for (int i = 0; i < tail.length; i++) {
+			final String line = tail[(tailIndex + i) % tail.length];
+			if (line != null) {
+				errList.add(line);
+			}
+		}
 		return errList;
 	}
 
+	public synchronized List<String> getHead() {
+		return new ArrayList<>(head);
+	}
+
+	public synchronized List<String> getTail() {
+		final List<String> errList = getErrList();
+		return errList.subList(head.size(), errList.size());
+	}
+
+	public synchronized long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return the number of lines that were neither kept in the head nor in the tail
+	 */
+	public synchronized long getOmittedLineCount() {
+		return lineCount - getErrList().size();
+	}
+
+	/**
+	 * @return the number of lines that are classified as errors
+	 */
+	public synchronized long getErrorCount() {
+		return errorCount;
+	}
+
+	public synchronized boolean hasErrors() {
+		return errorCount > 0;
+	}
+
+	public Pattern getErrorPattern() {
+		return errorPattern;
+	}
+
+	/**
+	 * Sets the pattern for lines that are classified as errors.
+	 *
+	 * @param errorPattern the pattern (searched in each line) or {@code null} to classify every line as error
+	 */
+	public synchronized void setErrorPattern(Pattern errorPattern) {
+		this.errorPattern = errorPattern;
+	}
+
+	public Pattern getIgnorePattern() {
+		return ignorePattern;
+	}
+
+	/**
+	 * Sets the pattern for lines that are never classified as errors (e.g., known warnings).
+	 *
+	 * @param ignorePattern the pattern (searched in each line) or {@code null} to ignore no line
+	 */
+	public synchronized void setIgnorePattern(Pattern ignorePattern) {
+		this.ignorePattern = ignorePattern;
+	}
+
 }
@@ -1,20 +1,39 @@
 package de.ovgu.featureide.fm.benchmark.streams;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.List;
 
 import org.sk.utils.Logger;
 
+/**
+ * Passes each line of an input stream to a list of {@link IOutputReader readers}. Optionally, lines are cut after a
+ * maximum length and the rest of a line is discarded, such that memory does not depend on the output. This is only
+ * meant for output that is logged (e.g., error output). Readers that parse the output must get complete lines.
+ */
 public class StreamRedirector implements Runnable {
 
+	public static final int DEFAULT_MAX_LINE_LENGTH = 1 << 16;
+
 	private final List<IOutputReader> outputReaderList;
+	private final int maxLineLength;
 	private InputStream in;
 
+	/**
+	 * Creates a redirector that passes complete lines.
+	 */
 	public StreamRedirector(List<IOutputReader> outputReaderList) {
+		this(outputReaderList, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxLineLength the maximum number of characters per line that are passed to the readers
+	 */
+	public StreamRedirector(List<IOutputReader> outputReaderList, int maxLineLength) {
 		this.outputReaderList = outputReaderList;
+		this.maxLineLength = maxLineLength;
 	}
 
 	public void setInputStream(InputStream in) {
@@ -23,18 +42,69 @@ public class StreamRedirector implements Runnable {
 
 	@Override
 	public void run() {
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
-			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-				for (IOutputReader outputReader : outputReaderList) {
-					try {
-						outputReader.readOutput(line);
-					} catch (Exception e) {
+		if (outputReaderList.isEmpty()) {
+			discard();
+			return;
+		}
+		try (Reader reader = new InputStreamReader(in)) {
+			final char[] buffer = new char[8192];
+			final StringBuilder line = new StringBuilder();
+			boolean lineStarted = false;
+			boolean skipLineFeed = false;
+			for (int length = reader.read(buffer); length >= 0; length = reader.read(buffer)) {
+				int start = 0;
+				for (int i = 0; i < length; i++) {
+					final char c = buffer[i];
+					if ((c == '\n') || (c == '\r')) {
+						if ((c == '\n') && skipLineFeed) {
+							skipLineFeed = false;
+							start = i + 1;
+							continue;
+						}
+						append(line, buffer, start, i);
+						redirect(line.toString());
+						line.setLength(0);
+						lineStarted = false;
+						skipLineFeed = c == '\r';
+						start = i + 1;
+					} else {
+						skipLineFeed = false;
+						lineStarted = true;
 					}
 				}
+				append(line, buffer, start, length);
+			}
+			if (lineStarted) {
+				redirect(line.toString());
 			}
 		} catch (IOException e) {
 			Logger.getInstance().logError(e);
 		}
 	}
 
+	private void append(StringBuilder line, char[] buffer, int start, int end) {
+		final int length = Math.min(end - start, maxLineLength - line.length());
+		if (length > 0) {
+			line.append(buffer, start, length);
+		}
+	}
+
+	private void redirect(String line) {
+		for (IOutputReader outputReader : outputReaderList) {
+			try {
+				outputReader.readOutput(line);
+			} catch (Exception e) {
+			}
+		}
+	}
+
+	private void discard() {
+		final byte[] buffer = new byte[8192];
+		try {
+			while (in.read(buffer) >= 0) {
+			}
+		} catch (IOException e) {
+		}
+	}
+
 }
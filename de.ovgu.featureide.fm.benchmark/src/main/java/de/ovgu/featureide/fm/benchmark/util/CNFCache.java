@@ -0,0 +1,217 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.sk.utils.Logger;
+
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+import de.ovgu.featureide.fm.core.analysis.cnf.IVariables;
+import de.ovgu.featureide.fm.core.analysis.cnf.LiteralSet;
+import de.ovgu.featureide.fm.core.analysis.cnf.Variables;
+
+/**
+ * Persistent cache for {@link CNF CNFs} derived from feature model files. Entries are identified by a hash of the
+ * model file and the conversion settings and are stored in a compact binary format. If the cache exceeds its
+ * maximum size, the least recently used entries are removed.
+ *
+ * @author Sebastian Krieter
+ */
+public class CNFCache {
+
+	private static final int MAGIC_NUMBER = 0x434E4631;
+	private static final String FILE_EXTENSION = ".cnf";
+
+	private final Path cachePath;
+	private final long maxSize;
+
+	/**
+	 * @param cachePath the directory of the cache
+	 * @param maxSize the maximum size of all entries in bytes
+	 */
+	public CNFCache(Path cachePath, long maxSize) throws IOException {
+		this.cachePath = cachePath;
+		this.maxSize = maxSize;
+		Files.createDirectories(cachePath);
+	}
+
+	public String getKey(Path modelFile, String settings) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final byte[] buffer = new byte[1 << 16];
+		try (InputStream in = Files.newInputStream(modelFile)) {
+			for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+				digest.update(buffer, 0, count);
+			}
+		}
+		digest.update(settings.getBytes(StandardCharsets.UTF_8));
+		final StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b & 0xff));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return the cached CNF or {@code null} if there is no valid entry for the given key
+	 */
+	public CNF get(String key) {
+		final Path entry = cachePath.resolve(key + FILE_EXTENSION);
+		if (!Files.isReadable(entry)) {
+			return null;
+		}
+		try {
+			final CNF cnf = read(entry);
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+			return cnf;
+		} catch (IOException | RuntimeException e) {
+			Logger.getInstance().logError("Invalid cache entry " + entry);
+			try {
+				Files.deleteIfExists(entry);
+			} catch (IOException e1) {
+				Logger.getInstance().logError(e1);
+			}
+			return null;
+		}
+	}
+
+	public void put(String key, CNF cnf) {
+		final Path entry = cachePath.resolve(key + FILE_EXTENSION);
+		try {
+			final Path tempEntry = Files.createTempFile(cachePath, key, ".tmp");
+			try {
+				write(cnf, tempEntry);
+				Files.move(tempEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempEntry);
+			}
+			evict();
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private synchronized void evict() throws IOException {
+		final List<Path> entries = new ArrayList<>();
+		long size = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(cachePath, "*" + FILE_EXTENSION)) {
+			for (Path file : files) {
+				entries.add(file);
+				size += Files.size(file);
+			}
+		}
+		if (size > maxSize) {
+			entries.sort(Comparator.comparing(file -> {
+				try {
+					return Files.getLastModifiedTime(file);
+				} catch (IOException e) {
+					return FileTime.fromMillis(0);
+				}
+			}));
+			for (Path file : entries) {
+				if (size <= maxSize) {
+					break;
+				}
+				size -= Files.size(file);
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	public static void write(CNF cnf, Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			write(cnf, out);
+		}
+	}
+
+	/**
+	 * Writes the given CNF in the binary format of the cache.
+	 */
+	public static void write(CNF cnf, DataOutputStream out) throws IOException {
+		final IVariables variables = cnf.getVariables();
+		final int variableCount = variables.size();
+		out.writeInt(MAGIC_NUMBER);
+		out.writeInt(variableCount);
+		for (int i = 1; i <= variableCount; i++) {
+			final byte[] name = variables.getName(i).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(name.length);
+			out.write(name);
+		}
+		final List<LiteralSet> clauses = cnf.getClauses();
+		out.writeInt(clauses.size());
+		for (LiteralSet clause : clauses) {
+			final int[] literals = clause.getLiterals();
+			out.writeInt(literals.length);
+			for (int literal : literals) {
+				out.writeInt(literal);
+			}
+		}
+	}
+
+	public static CNF read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC_NUMBER) {
+				throw new IOException("Unknown format " + path);
+			}
+			final String[] names = new String[buffer.getInt()];
+			for (int i = 0; i < names.length; i++) {
+				final byte[] name = new byte[buffer.getInt()];
+				buffer.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+			}
+			final int clauseCount = buffer.getInt();
+			final List<LiteralSet> clauses = new ArrayList<>(clauseCount);
+			for (int i = 0; i < clauseCount; i++) {
+				final int[] literals = new int[buffer.getInt()];
+				for (int j = 0; j < literals.length; j++) {
+					literals[j] = buffer.getInt();
+				}
+				clauses.add(new LiteralSet(literals));
+			}
+			return new CNF(new Variables(Arrays.asList(names)), clauses);
+		}
+	}
+
+}
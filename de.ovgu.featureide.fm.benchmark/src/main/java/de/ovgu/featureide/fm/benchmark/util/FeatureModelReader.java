@@ -20,16 +20,26 @@
  */
 package de.ovgu.featureide.fm.benchmark.util;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.DirectoryStream;
 import java.nio.file.DirectoryStream.Filter;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.sk.utils.Logger;
 
@@ -40,33 +50,60 @@ import de.ovgu.featureide.fm.core.io.manager.FeatureModelManager;
 import de.ovgu.featureide.fm.core.io.manager.FileHandler;
 
 /**
+ * Reads feature models by name from a models directory. The directory may contain model folders, model files, and
+ * zip archives containing model folders and files.
+ * <p>
+ * On first access, an index of all model candidates in the directory and in all archives is built. The archives
+ * are kept open until {@link #close()} is called. Names that are not in the index, such as paths to models in
+ * sub-directories, are resolved against the models directory and the root of each archive.
+ *
  * @author Sebastian Krieter
  */
-public class FeatureModelReader {
+public class FeatureModelReader implements Closeable {
 
 	static {
 		LibraryManager.registerLibrary(FMCoreLibrary.getInstance());
 	}
 
+	private static final Pattern MODEL_FILE_PATTERN = Pattern.compile("^(.+)\\.\\w+$");
+	private static final Pattern ZIP_FILE_PATTERN = Pattern.compile(".*[.]zip\\Z");
+
 	protected String modelFileName = "model.xml";
 	protected Path pathToModels;
 
-	public final IFeatureModel read(final String name) {
-		IFeatureModel fm = null;
+	private final List<FileSystem> archives = new ArrayList<>();
+	private final List<Path> roots = new ArrayList<>();
+	private final Set<String> missingModels = ConcurrentHashMap.newKeySet();
+	private final Map<String, Path> modelFiles = new ConcurrentHashMap<>();
+	private Map<String, List<Path>> index = null;
 
-		fm = readFromFolder(pathToModels, name);
-		if (fm != null) {
-			return fm;
+	public final IFeatureModel read(final String name) {
+		if (missingModels.contains(name)) {
+			return null;
 		}
-
-		fm = readFromFile(pathToModels, name);
-		if (fm != null) {
-			return fm;
+		for (Path path : getCandidates(name)) {
+			Logger.getInstance().logInfo("Trying to load from " + path.toUri(), 1);
+			final IFeatureModel fm = loadFile(path);
+			if (fm != null) {
+				modelFiles.put(name, path);
+				return fm;
+			}
 		}
+		missingModels.add(name);
+		return null;
+	}
 
-		fm = readFromZip(pathToModels, name);
-
-		return fm;
+	/**
+	 * @return the file from which the model with the given name was read or, if the model was not read yet, the
+	 *         first file from which the reader will try to read it. {@code null}, if there is no such file.
+	 */
+	public Path getModelFile(final String name) {
+		final Path modelFile = modelFiles.get(name);
+		if (modelFile != null) {
+			return modelFile;
+		}
+		final List<Path> candidates = getCandidates(name);
+		return candidates.isEmpty() ? null : candidates.get(0);
 	}
 
 	public Path getPathToModels() {
@@ -74,9 +111,147 @@ public class FeatureModelReader {
 	}
 
 	public void setPathToModels(Path pathToModels) {
+		close();
 		this.pathToModels = pathToModels;
 	}
 
+	private synchronized List<Path> getCandidates(final String name) {
+		if (index == null) {
+			final Map<String, List<Path>> newIndex = new HashMap<>();
+			if (pathToModels != null) {
+				buildIndex(newIndex);
+			}
+			index = newIndex;
+		}
+		List<Path> candidates = index.get(name);
+		if (candidates == null) {
+			candidates = resolveCandidates(name);
+			index.put(name, candidates);
+		}
+		return candidates;
+	}
+
+	private List<Path> resolveCandidates(final String name) {
+		final List<Path> candidates = new ArrayList<>(1);
+		for (Path root : roots) {
+			final Path modelPath;
+			try {
+				modelPath = root.resolve(name);
+			} catch (RuntimeException e) {
+				continue;
+			}
+			if (Files.isDirectory(modelPath)) {
+				final Path path = modelPath.resolve(modelFileName);
+				if (Files.exists(path)) {
+					candidates.add(path);
+				} else {
+					try {
+						candidates.addAll(findFiles(modelPath, "model"));
+					} catch (IOException e) {
+						Logger.getInstance().logError(e);
+					}
+				}
+			} else if (isModelFile(modelPath)) {
+				candidates.add(modelPath);
+			}
+		}
+		return candidates.isEmpty() ? Collections.<Path> emptyList() : candidates;
+	}
+
+	private void buildIndex(Map<String, List<Path>> newIndex) {
+		roots.clear();
+		roots.add(pathToModels);
+		indexFolders(newIndex, pathToModels);
+		indexFiles(newIndex, pathToModels);
+		final Filter<Path> zipFilter = file -> Files.isReadable(file) && Files.isRegularFile(file)
+				&& ZIP_FILE_PATTERN.matcher(file.getFileName().toString()).matches();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(pathToModels, zipFilter)) {
+			for (Path path : files) {
+				Logger.getInstance().logInfo("Indexing zip file " + path, 1);
+				final URI uri = URI.create("jar:" + path.toUri().toString());
+				try {
+					FileSystem zipFs;
+					try {
+						zipFs = FileSystems.newFileSystem(uri, Collections.<String, Object> emptyMap());
+						archives.add(zipFs);
+					} catch (FileSystemAlreadyExistsException e) {
+						// opened elsewhere, must not be closed by this reader
+						zipFs = FileSystems.getFileSystem(uri);
+					}
+					for (Path root : zipFs.getRootDirectories()) {
+						roots.add(root);
+						indexFolders(newIndex, root);
+						indexFiles(newIndex, root);
+					}
+				} catch (IOException e) {
+					Logger.getInstance().logError(e);
+				}
+			}
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private void indexFolders(Map<String, List<Path>> newIndex, final Path rootPath) {
+		try (DirectoryStream<Path> folders = Files.newDirectoryStream(rootPath, Files::isDirectory)) {
+			for (Path modelFolder : folders) {
+				final String name = getFileName(modelFolder);
+				final Path path = modelFolder.resolve(modelFileName);
+				if (Files.exists(path)) {
+					addCandidate(newIndex, name, path);
+				} else {
+					for (Path modelFile : findFiles(modelFolder, "model")) {
+						addCandidate(newIndex, name, modelFile);
+					}
+				}
+			}
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private void indexFiles(Map<String, List<Path>> newIndex, final Path rootPath) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(rootPath, this::isModelFile)) {
+			for (Path modelFile : files) {
+				final Matcher matcher = MODEL_FILE_PATTERN.matcher(modelFile.getFileName().toString());
+				if (matcher.matches()) {
+					addCandidate(newIndex, matcher.group(1), modelFile);
+				}
+			}
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private void addCandidate(Map<String, List<Path>> newIndex, String name, Path path) {
+		newIndex.computeIfAbsent(name, k -> new ArrayList<>(1)).add(path);
+	}
+
+	private String getFileName(Path path) {
+		final String fileName = path.getFileName().toString();
+		// Directories in zip file systems end with a separator
+		return fileName.endsWith("/") ? fileName.substring(0, fileName.length() - 1) : fileName;
+	}
+
+	private boolean isModelFile(Path file) {
+		return Files.isReadable(file) && Files.isRegularFile(file)
+				&& !ZIP_FILE_PATTERN.matcher(file.getFileName().toString()).matches()
+				&& MODEL_FILE_PATTERN.matcher(file.getFileName().toString()).matches();
+	}
+
+	private List<Path> findFiles(final Path rootPath, final String name) throws IOException {
+		final List<Path> foundFiles = new ArrayList<>(1);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(rootPath, this::isModelFile)) {
+			for (Path modelFile : files) {
+				final Matcher matcher = MODEL_FILE_PATTERN.matcher(modelFile.getFileName().toString());
+				if (matcher.matches() && matcher.group(1).equals(name)) {
+					foundFiles.add(modelFile);
+				}
+			}
+		}
+		return foundFiles;
+	}
+
 	public IFeatureModel loadFile(final Path path) {
 		final FileHandler<IFeatureModel> fh = FeatureModelManager.getFileHandler(path);
 		if (fh.getLastProblems().containsError()) {
@@ -103,10 +278,8 @@ public class FeatureModelReader {
 	}
 
 	public IFeatureModel readFromFile(final Path rootPath, final String name) {
-		final Filter<Path> fileFilter = file -> Files.isReadable(file) && Files.isRegularFile(file)
-				&& file.getFileName().toString().matches("^" + name + "\\.\\w+$");
-		try (DirectoryStream<Path> files = Files.newDirectoryStream(rootPath, fileFilter)) {
-			final Iterator<Path> iterator = files.iterator();
+		try {
+			final Iterator<Path> iterator = findFiles(rootPath, name).iterator();
 			while (iterator.hasNext()) {
 				Path next = iterator.next();
 				Logger.getInstance().logInfo("Trying to load from file " + next, 1);
@@ -122,32 +295,23 @@ public class FeatureModelReader {
 		return null;
 	}
 
-	protected IFeatureModel readFromZip(final Path rootPath, final String name) {
-		final Filter<Path> fileFilter = file -> Files.isReadable(file) && Files.isRegularFile(file)
-				&& file.getFileName().toString().matches(".*[.]zip\\Z");
-		try (DirectoryStream<Path> files = Files.newDirectoryStream(rootPath, fileFilter)) {
-			for (Path path : files) {
-				Logger.getInstance().logInfo("Trying to load from zip file " + path, 1);
-				final URI uri = URI.create("jar:" + path.toUri().toString());
-				try (final FileSystem zipFs = FileSystems.newFileSystem(uri, Collections.<String, Object>emptyMap())) {
-					for (Path root : zipFs.getRootDirectories()) {
-						IFeatureModel fm = readFromFolder(root, name);
-						if (fm != null) {
-							return fm;
-						}
-						fm = readFromFile(root, name);
-						if (fm != null) {
-							return fm;
-						}
-					}
-				} catch (IOException e) {
-					Logger.getInstance().logError(e);
-				}
+	/**
+	 * Closes all archives and discards the index.
+	 */
+	@Override
+	public synchronized void close() {
+		for (FileSystem archive : archives) {
+			try {
+				archive.close();
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
 			}
-		} catch (IOException e) {
-			Logger.getInstance().logError(e);
 		}
-		return null;
+		archives.clear();
+		roots.clear();
+		missingModels.clear();
+		modelFiles.clear();
+		index = null;
 	}
 
 }
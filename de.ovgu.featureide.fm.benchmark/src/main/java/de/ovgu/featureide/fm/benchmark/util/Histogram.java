@@ -0,0 +1,99 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram with exponential buckets. Bucket i counts the values between 2<sup>i-1</sup> and
+ * 2<sup>i</sup> - 1. Recording a value does not allocate any memory.
+ *
+ * @author Sebastian Krieter
+ */
+public class Histogram {
+
+	public static final int BUCKET_COUNT = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long value) {
+		final long positiveValue = Math.max(0, value);
+		buckets.incrementAndGet(getBucket(positiveValue));
+		count.increment();
+		sum.add(positiveValue);
+		long curMax = max.get();
+		while ((positiveValue > curMax) && !max.compareAndSet(curMax, positiveValue)) {
+			curMax = max.get();
+		}
+	}
+
+	private static int getBucket(long value) {
+		return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * @return the largest value that is counted in the given bucket
+	 */
+	public static long getUpperBound(int bucket) {
+		return (bucket >= (BUCKET_COUNT - 1)) ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return an upper bound for the given quantile (e.g., 0.99), which is at most twice the actual value
+	 */
+	public long getQuantile(double quantile) {
+		final long totalCount = getCount();
+		if (totalCount == 0) {
+			return 0;
+		}
+		final long rank = (long) Math.ceil(quantile * totalCount);
+		long curCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			curCount += buckets.get(i);
+			if (curCount >= rank) {
+				return Math.min(getUpperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+}
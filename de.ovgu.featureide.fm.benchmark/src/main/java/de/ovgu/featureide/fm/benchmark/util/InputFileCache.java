@@ -0,0 +1,166 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.sk.utils.Logger;
+
+import de.ovgu.featureide.fm.core.analysis.cnf.CNF;
+
+/**
+ * Temporary input files for algorithms, identified by the content of a {@link CNF} and a file format. Each distinct
+ * file is written only once and shared by all users. Users acquire and release files, and a file is deleted as soon
+ * as it is released by all of its users.
+ *
+ * @author Sebastian Krieter
+ */
+public class InputFileCache {
+
+	/**
+	 * Writes a CNF into a file of a specific format.
+	 */
+	@FunctionalInterface
+	public interface IInputWriter {
+		void write(CNF cnf, Path file) throws Exception;
+	}
+
+	private static class Entry {
+		private final FutureTask<Path> file;
+		private int references = 0;
+
+		private Entry(FutureTask<Path> file) {
+			this.file = file;
+		}
+	}
+
+	private final Path directory;
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * @param directory the directory for all files. Is created if it does not exist.
+	 */
+	public InputFileCache(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+	}
+
+	/**
+	 * Computes a hash of the variables and clauses of the given CNF.
+	 */
+	public static String getContentHash(CNF cnf) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final OutputStream nullStream = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new DigestOutputStream(nullStream, digest)))) {
+			CNFCache.write(cnf, out);
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns a file that contains the given CNF in the given format and increments its reference count. The file
+	 * is written if it does not exist yet.
+	 *
+	 * @param contentHash the hash of the CNF (see {@link #getContentHash(CNF)})
+	 * @param cnf the CNF
+	 * @param format the name of the format, which is also used as file extension
+	 * @param writer writes the CNF in the format
+	 * @return the file, which must be released via {@link #release(String, String)}
+	 */
+	public Path acquire(String contentHash, CNF cnf, String format, IInputWriter writer) throws Exception {
+		final String fileName = getFileName(contentHash, format);
+		final Entry entry;
+		synchronized (this) {
+			entry = entries.computeIfAbsent(fileName, name -> new Entry(new FutureTask<>(() -> {
+				final Path file = directory.resolve(name);
+				final Path tempFile = directory.resolve(name + ".tmp");
+				writer.write(cnf, tempFile);
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				return file;
+			})));
+			entry.references++;
+		}
+		entry.file.run();
+		try {
+			return entry.file.get();
+		} catch (ExecutionException e) {
+			release(contentHash, format);
+			final Throwable cause = e.getCause();
+			throw (cause instanceof Exception) ? (Exception) cause : e;
+		}
+	}
+
+	/**
+	 * Decrements the reference count of the given file and deletes it if it is not used anymore.
+	 */
+	public void release(String contentHash, String format) {
+		final String fileName = getFileName(contentHash, format);
+		synchronized (this) {
+			final Entry entry = entries.get(fileName);
+			if ((entry == null) || (--entry.references > 0)) {
+				return;
+			}
+			entries.remove(fileName);
+			try {
+				Files.deleteIfExists(directory.resolve(fileName));
+				Files.deleteIfExists(directory.resolve(fileName + ".tmp"));
+			} catch (IOException e) {
+				Logger.getInstance().logError(e);
+			}
+		}
+	}
+
+	private static String getFileName(String contentHash, String format) {
+		return contentHash + "." + format;
+	}
+
+}
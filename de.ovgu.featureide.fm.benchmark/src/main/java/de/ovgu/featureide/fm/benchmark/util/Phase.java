@@ -0,0 +1,74 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+/**
+ * Phases of a benchmark whose durations are recorded by the {@link PhaseRecorder}.
+ *
+ * @author Sebastian Krieter
+ */
+public enum Phase {
+
+	/**
+	 * Loading a feature model and converting it into a CNF (once per system).
+	 */
+	LOAD_MODEL("LoadModel", false),
+	/**
+	 * Creating the randomized model (once per system iteration).
+	 */
+	ADAPT_MODEL("AdaptModel", false),
+	/**
+	 * Waiting for the randomized model before a run.
+	 */
+	WAIT_FOR_MODEL("WaitForModel", true),
+	ADAPT_ALGORITHM("AdaptAlgorithm", true),
+	GC("GC", true),
+	PRE_PROCESS("PreProcess", true),
+	START_PROCESS("StartProcess", true),
+	/**
+	 * Waiting for the started process (or worker task) to terminate.
+	 */
+	RUN_PROCESS("RunProcess", true),
+	DRAIN_STREAMS("DrainStreams", true),
+	PARSE_RESULTS("ParseResults", true),
+	POST_PROCESS("PostProcess", true),
+	WRITE_RESULTS("WriteResults", true);
+
+	private final String name;
+	private final boolean perRun;
+
+	private Phase(String name, boolean perRun) {
+		this.name = name;
+		this.perRun = perRun;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return whether this phase occurs once for each run
+	 */
+	public boolean isPerRun() {
+		return perRun;
+	}
+
+}
@@ -0,0 +1,180 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sk.utils.Logger;
+
+/**
+ * Measures the duration of the {@link Phase phases} of a benchmark. All durations are collected in a histogram per
+ * phase. If the Java runtime supports JDK Flight Recorder (Java 11 or newer), each phase is also emitted as an event
+ * of the type de.ovgu.featureide.fm.benchmark.Phase, which is recorded when a flight recording is running.
+ *
+ * @author Sebastian Krieter
+ */
+public final class PhaseRecorder {
+
+	/**
+	 * Measures a single occurrence of a phase.
+	 */
+	public static final class Timer {
+
+		private final Phase phase;
+		private final long startTime;
+		private final Object event;
+
+		private Timer(Phase phase, Object event) {
+			this.phase = phase;
+			this.event = event;
+			startTime = System.nanoTime();
+		}
+
+		/**
+		 * Ends the phase and records its duration.
+		 *
+		 * @return the duration in nanoseconds
+		 */
+		public long stop() {
+			final long duration = System.nanoTime() - startTime;
+			getInstance().histograms.get(phase).record(duration);
+			if (event != null) {
+				getInstance().commitEvent(event);
+			}
+			return duration;
+		}
+
+	}
+
+	private static final PhaseRecorder INSTANCE = new PhaseRecorder();
+
+	public static PhaseRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	private final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+
+	private Object eventFactory;
+	private Method newEvent, setField, beginEvent, endEvent, commitEvent;
+
+	private PhaseRecorder() {
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new Histogram());
+		}
+		initFlightRecorder();
+	}
+
+	/**
+	 * Defines the event type via the JFR API, if it is available. Reflection is used, because the API does not exist
+	 * in Java 8.
+	 */
+	private void initFlightRecorder() {
+		try {
+			final Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			final Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+			final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+			final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			final Class<?> nameClass = Class.forName("jdk.jfr.Name");
+			final Class<?> labelClass = Class.forName("jdk.jfr.Label");
+			final Class<?> categoryClass = Class.forName("jdk.jfr.Category");
+
+			final Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+			final List<Object> annotations = Arrays.asList(
+					annotationElement.newInstance(nameClass, "de.ovgu.featureide.fm.benchmark.Phase"),
+					annotationElement.newInstance(labelClass, "Benchmark Phase"),
+					annotationElement.newInstance(categoryClass, new String[] { "FeatureIDE", "Benchmark" }));
+			final List<Object> fields = Collections.singletonList(valueDescriptorClass
+					.getConstructor(Class.class, String.class, List.class).newInstance(String.class, "phase",
+							Collections.singletonList(annotationElement.newInstance(labelClass, "Phase"))));
+
+			eventFactory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, annotations,
+					fields);
+			newEvent = eventFactoryClass.getMethod("newEvent");
+			setField = eventClass.getMethod("set", int.class, Object.class);
+			beginEvent = eventClass.getMethod("begin");
+			endEvent = eventClass.getMethod("end");
+			commitEvent = eventClass.getMethod("commit");
+		} catch (ClassNotFoundException e) {
+			eventFactory = null;
+		} catch (Exception e) {
+			Logger.getInstance().logError(e);
+			eventFactory = null;
+		}
+	}
+
+	/**
+	 * Starts to measure the given phase. The returned timer must be stopped in the same thread.
+	 */
+	public Timer start(Phase phase) {
+		return new Timer(phase, beginEvent(phase));
+	}
+
+	private Object beginEvent(Phase phase) {
+		if (eventFactory != null) {
+			try {
+				final Object event = newEvent.invoke(eventFactory);
+				setField.invoke(event, 0, phase.getName());
+				beginEvent.invoke(event);
+				return event;
+			} catch (Exception e) {
+				eventFactory = null;
+				Logger.getInstance().logError(e);
+			}
+		}
+		return null;
+	}
+
+	private void commitEvent(Object event) {
+		try {
+			endEvent.invoke(event);
+			commitEvent.invoke(event);
+		} catch (Exception e) {
+			eventFactory = null;
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	public Histogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+	/**
+	 * Logs count, total, mean and 99th percentile of the duration of each phase.
+	 */
+	public void logSummary() {
+		for (Phase phase : Phase.values()) {
+			final Histogram histogram = histograms.get(phase);
+			final long count = histogram.getCount();
+			if (count > 0) {
+				Logger.getInstance().logInfo(String.format("%s: count=%d, total=%.1fms, mean=%.3fms, p99<=%.3fms",
+						phase.getName(), count, histogram.getSum() / 1e6, (histogram.getSum() / 1e6) / count,
+						histogram.getQuantile(0.99) / 1e6), 0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+/**
+ * Mergeable sketch for quantiles of non-negative values with a bounded relative error. Values are counted in
+ * logarithmic buckets, such that each returned quantile differs from the exact value by at most the given relative
+ * accuracy. The number of buckets only depends on the range of the values, not on their count (at most about 2200
+ * buckets for a relative accuracy of 1%).
+ *
+ * @author Sebastian Krieter
+ */
+public class QuantileSketch {
+
+	private final double gamma;
+	private final double logGamma;
+
+	private long[] counts = new long[0];
+	private int offset = 0;
+	private long zeroCount = 0;
+	private long count = 0;
+	private double sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * @param relativeAccuracy the maximum relative error of the quantiles (e.g., 0.01)
+	 */
+	public QuantileSketch(double relativeAccuracy) {
+		gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		logGamma = Math.log(gamma);
+	}
+
+	/**
+	 * Adds a value. Negative values are counted as zero.
+	 */
+	public void add(long value) {
+		if (value <= 0) {
+			zeroCount++;
+			value = 0;
+		} else {
+			final int index = getIndex(value);
+			ensureCapacity(index, index);
+			counts[index - offset]++;
+		}
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds all values of another sketch with the same relative accuracy.
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.count == 0) {
+			return;
+		}
+		if (other.counts.length > 0) {
+			ensureCapacity(other.offset, (other.offset + other.counts.length) - 1);
+			for (int i = 0; i < other.counts.length; i++) {
+				counts[(other.offset + i) - offset] += other.counts[i];
+			}
+		}
+		zeroCount += other.zeroCount;
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	private int getIndex(long value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	private void ensureCapacity(int minIndex, int maxIndex) {
+		if (counts.length == 0) {
+			offset = minIndex;
+			counts = new long[(maxIndex - minIndex) + 1];
+		} else if ((minIndex < offset) || (maxIndex >= (offset + counts.length))) {
+			final int newOffset = Math.min(minIndex, offset);
+			final int newLength = (Math.max(maxIndex, (offset + counts.length) - 1) - newOffset) + 1;
+			final long[] newCounts = new long[newLength];
+			System.arraycopy(counts, 0, newCounts, offset - newOffset, counts.length);
+			counts = newCounts;
+			offset = newOffset;
+		}
+	}
+
+	/**
+	 * @return the given quantile (e.g., 0.5 for the median) or {@link Double#NaN} if the sketch is empty
+	 */
+	public double getQuantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		final long rank = (long) Math.floor(quantile * (count - 1));
+		if (rank < zeroCount) {
+			return 0;
+		}
+		long curCount = zeroCount;
+		for (int i = 0; i < counts.length; i++) {
+			curCount += counts[i];
+			if (curCount > rank) {
+				final double value = (2 * Math.pow(gamma, offset + i)) / (gamma + 1);
+				return Math.max(min, Math.min(max, value));
+			}
+		}
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+}
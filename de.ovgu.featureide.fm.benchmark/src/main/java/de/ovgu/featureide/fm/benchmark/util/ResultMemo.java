@@ -0,0 +1,216 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sk.utils.Logger;
+
+/**
+ * Persistent store for the results of deterministic algorithms. Entries are identified by the content hash of the
+ * input CNF, the full name of the algorithm, and the random seed. They are stored per algorithm and version, such
+ * that all entries of other versions of an algorithm are removed when the algorithm is used for the first time. If
+ * the store exceeds its maximum size, the least recently used entries are removed.
+ *
+ * @author Sebastian Krieter
+ */
+public class ResultMemo {
+
+	private static final String FILE_EXTENSION = ".memo";
+
+	private final Path memoPath;
+	private final long maxSize;
+
+	private final Set<Path> checkedAlgorithms = ConcurrentHashMap.newKeySet();
+	private long size;
+
+	/**
+	 * @param memoPath the directory of the store
+	 * @param maxSize the maximum size of all entries in bytes
+	 */
+	public ResultMemo(Path memoPath, long maxSize) throws IOException {
+		this.memoPath = memoPath;
+		this.maxSize = maxSize;
+		Files.createDirectories(memoPath);
+		size = 0;
+		for (Path entry : getEntries()) {
+			size += Files.size(entry);
+		}
+	}
+
+	public String getKey(String contentHash, String algorithmName, long seed) throws IOException {
+		return hash(contentHash + '\0' + algorithmName + '\0' + seed);
+	}
+
+	/**
+	 * @return the stored result or {@code null} if there is no valid entry for the given key
+	 */
+	public Object get(String algorithmName, String version, String key) throws IOException {
+		final Path entry = getEntry(algorithmName, version, key);
+		if (!Files.isReadable(entry)) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+			final Object result = in.readObject();
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+			return result;
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			Logger.getInstance().logError("Invalid memo entry " + entry);
+			final long entrySize = getSize(entry);
+			if (Files.deleteIfExists(entry)) {
+				addSize(-entrySize);
+			}
+			return null;
+		}
+	}
+
+	public void put(String algorithmName, String version, String key, Serializable result) {
+		try {
+			final Path entry = getEntry(algorithmName, version, key);
+			final Path tempEntry = Files.createTempFile(entry.getParent(), key, ".tmp");
+			try {
+				try (ObjectOutputStream out = new ObjectOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempEntry)))) {
+					out.writeObject(result);
+				}
+				final long entrySize = Files.size(tempEntry);
+				final long replacedSize = getSize(entry);
+				Files.move(tempEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				addSize(entrySize - replacedSize);
+			} finally {
+				Files.deleteIfExists(tempEntry);
+			}
+		} catch (IOException e) {
+			Logger.getInstance().logError(e);
+		}
+	}
+
+	private Path getEntry(String algorithmName, String version, String key) throws IOException {
+		final Path algorithmPath = memoPath.resolve(hash(algorithmName).substring(0, 16));
+		final String versionName = version.isEmpty() ? "default" : version.replaceAll("[^\\w.-]", "_");
+		final Path versionPath = algorithmPath.resolve(versionName);
+		if (checkedAlgorithms.add(algorithmPath)) {
+			removeOtherVersions(algorithmPath, versionPath);
+		}
+		Files.createDirectories(versionPath);
+		return versionPath.resolve(key + FILE_EXTENSION);
+	}
+
+	private void removeOtherVersions(Path algorithmPath, Path versionPath) throws IOException {
+		if (!Files.isDirectory(algorithmPath)) {
+			return;
+		}
+		final List<Path> otherFiles;
+		try (Stream<Path> files = Files.walk(algorithmPath)) {
+			otherFiles = files.filter(file -> !file.startsWith(versionPath) && !file.equals(algorithmPath))
+					.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		}
+		if (!otherFiles.isEmpty()) {
+			Logger.getInstance().logInfo("Removing memoized results of other versions in " + algorithmPath, 1);
+		}
+		for (Path file : otherFiles) {
+			if (Files.isRegularFile(file)) {
+				addSize(-Files.size(file));
+			}
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private List<Path> getEntries() throws IOException {
+		try (Stream<Path> files = Files.walk(memoPath)) {
+			return files.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * @return the size of the given entry or 0 if it does not exist
+	 */
+	private static long getSize(Path entry) {
+		try {
+			return Files.size(entry);
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private synchronized void addSize(long entrySize) throws IOException {
+		size += entrySize;
+		if (size > maxSize) {
+			evict();
+		}
+	}
+
+	private void evict() throws IOException {
+		final List<Path> entries = getEntries();
+		entries.sort(Comparator.comparing(file -> {
+			try {
+				return Files.getLastModifiedTime(file);
+			} catch (IOException e) {
+				return FileTime.fromMillis(0);
+			}
+		}));
+		size = 0;
+		for (Path entry : entries) {
+			size += Files.size(entry);
+		}
+		for (Path entry : entries) {
+			if (size <= maxSize) {
+				break;
+			}
+			size -= Files.size(entry);
+			Files.deleteIfExists(entry);
+		}
+	}
+
+	private static String hash(String value) throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest(value.getBytes(StandardCharsets.UTF_8))) {
+			sb.append(String.format("%02x", b & 0xff));
+		}
+		return sb.toString();
+	}
+
+}
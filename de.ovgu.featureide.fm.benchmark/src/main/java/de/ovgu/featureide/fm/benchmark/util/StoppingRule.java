@@ -0,0 +1,112 @@
+/* FeatureIDE - A Framework for Feature-Oriented Software Development
+ * Copyright (C) 2005-2015  FeatureIDE team, University of Magdeburg, Germany
+ *
+ * This file is part of FeatureIDE.
+ * 
+ * FeatureIDE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * FeatureIDE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FeatureIDE.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * See http://featureide.cs.ovgu.de/ for further information.
+ */
+package de.ovgu.featureide.fm.benchmark.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides when to stop repeating an algorithm on the same input. Iterations are repeated until the 95% confidence
+ * interval of the median time is narrower than a given width relative to the median, until a maximum number of
+ * iterations is reached, or until the total time of all iterations exceeds a given budget.
+ * <p>
+ * The confidence interval is distribution-free, i.e., its bounds are order statistics of the measured times.
+ *
+ * @author Sebastian Krieter
+ */
+public class StoppingRule {
+
+	public static final String CONVERGED = "Converged";
+	public static final String MAX_ITERATIONS = "MaxIterations";
+	public static final String TIME_BUDGET = "TimeBudget";
+	public static final String TIMEOUT = "Timeout";
+	public static final String ERROR = "Error";
+
+	private static final double Z_95 = 1.959964;
+
+	private final double relativeWidth;
+	private final int minIterations;
+	private final long timeBudget;
+
+	/**
+	 * @param relativeWidth the maximum width of the confidence interval relative to the median
+	 * @param minIterations the minimum number of iterations
+	 * @param timeBudget the maximum total time of all iterations in milliseconds
+	 */
+	public StoppingRule(double relativeWidth, int minIterations, long timeBudget) {
+		this.relativeWidth = relativeWidth;
+		this.minIterations = minIterations;
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * @param times the measured times of all previous iterations
+	 * @param maxIterations the maximum number of iterations
+	 * @return the reason to stop or {@code null} if another iteration should be run
+	 */
+	public String getStopReason(List<Long> times, int maxIterations) {
+		final int n = times.size();
+		if (n >= maxIterations) {
+			return MAX_ITERATIONS;
+		}
+		if (times.stream().mapToLong(Long::longValue).sum() >= timeBudget) {
+			return TIME_BUDGET;
+		}
+		if ((n >= minIterations) && (getRelativeWidth(times) <= relativeWidth)) {
+			return CONVERGED;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the width of the confidence interval of the median relative to the median
+	 */
+	public static double getRelativeWidth(List<Long> times) {
+		final int n = times.size();
+		if (n == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		final long[] sortedTimes = times.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(sortedTimes);
+		final double halfWidth = (Z_95 * Math.sqrt(n)) / 2;
+		final int lower = Math.max(0, (int) Math.floor((n / 2.0) - halfWidth) - 1);
+		final int upper = Math.min(n - 1, (int) Math.ceil((n / 2.0) + halfWidth));
+		final double median = getMedian(sortedTimes);
+		final double width = sortedTimes[upper] - sortedTimes[lower];
+		return median > 0 ? width / median : (width > 0 ? Double.POSITIVE_INFINITY : 0);
+	}
+
+	public static double getMedian(List<Long> times) {
+		final long[] sortedTimes = times.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(sortedTimes);
+		return getMedian(sortedTimes);
+	}
+
+	private static double getMedian(long[] sortedTimes) {
+		if (sortedTimes.length == 0) {
+			return Double.NaN;
+		}
+		final int middle = sortedTimes.length / 2;
+		return (sortedTimes.length % 2 == 1) ? sortedTimes[middle]
+				: (sortedTimes[middle - 1] + sortedTimes[middle]) / 2.0;
+	}
+
+}